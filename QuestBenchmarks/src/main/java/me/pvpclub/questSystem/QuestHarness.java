@@ -0,0 +1,388 @@
+package me.pvpclub.questSystem;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+import org.bukkit.command.PluginCommand;
+import org.bukkit.damage.DamageSource;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Player;
+import org.bukkit.event.entity.EntityDeathEvent;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.inventory.ItemFactory;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.PluginDescriptionFile;
+import org.bukkit.plugin.java.JavaPluginLoader;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.InetAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+public final class QuestHarness implements AutoCloseable {
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+    private static final Map<UUID, Player> ONLINE = new ConcurrentHashMap<>();
+    private static final Logger LOGGER = Logger.getLogger("QuestBenchmarks");
+    private static final Map<Plugin, Clock> CLOCKS = new ConcurrentHashMap<>();
+    private static final AtomicInteger TASK_IDS = new AtomicInteger();
+    private static final ExecutorService ASYNC = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "QuestHarness-async");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static Server server;
+    private static volatile QuestSystem enabling;
+
+    private final Path dataFolder;
+    private final QuestSystem plugin;
+    private final Clock clock;
+    private final QuestSystem.QuestListener listener;
+    private final QuestSystem.LeaderboardGUI leaderboardGUI;
+
+    private QuestHarness(Path dataFolder, QuestSystem plugin, Clock clock) {
+        this.dataFolder = dataFolder;
+        this.plugin = plugin;
+        this.clock = clock;
+        this.listener = new QuestSystem.QuestListener(plugin);
+        this.leaderboardGUI = new QuestSystem.LeaderboardGUI(plugin);
+    }
+
+    public static QuestHarness start(Map<String, Object> settings) throws IOException {
+        Server current = server();
+        Path dataFolder = Files.createTempDirectory("quest-bench");
+        PluginDescriptionFile description;
+        try (InputStream in = QuestSystem.class.getClassLoader().getResourceAsStream("plugin.yml")) {
+            if (in == null) throw new IOException("plugin.yml is missing from the QuestPlugin jar");
+            description = new PluginDescriptionFile(in);
+        } catch (org.bukkit.plugin.InvalidDescriptionException e) {
+            throw new IOException(e);
+        }
+
+        QuestSystem plugin = new QuestSystem(new JavaPluginLoader(current), description,
+                dataFolder.toFile(), dataFolder.resolve("QuestPlugin.jar").toFile());
+        plugin.getConfig().set("database.type", "H2");
+        plugin.getConfig().set("database.h2.in-memory", true);
+        plugin.getConfig().set("database.h2.file", "bench" + DATABASES.incrementAndGet());
+        plugin.getConfig().set("quests.poll-interval-seconds", 0);
+        plugin.getConfig().set("leaderboard.refresh-minutes", 0);
+        settings.forEach(plugin.getConfig()::set);
+        Clock clock = new Clock();
+        CLOCKS.put(plugin, clock);
+        enabling = plugin;
+        try {
+            plugin.onEnable();
+        } finally {
+            enabling = null;
+        }
+        if (plugin.getQuestManager() == null || !plugin.getStartup().awaitReady(TimeUnit.MINUTES.toMillis(1))) {
+            CLOCKS.remove(plugin);
+            throw new IllegalStateException("QuestSystem failed to enable");
+        }
+        return new QuestHarness(dataFolder, plugin, clock);
+    }
+
+    public QuestSystem getPlugin() {
+        return plugin;
+    }
+
+    public QuestSystem.QuestManager getQuestManager() {
+        return plugin.getQuestManager();
+    }
+
+    public List<QuestSystem.Quest> createQuests(int count, QuestSystem.QuestType type, List<String> targets, int requiredAmount) throws SQLException {
+        try (Connection conn = plugin.getDatabaseManager().getConnection()) {
+            try (Statement statement = conn.createStatement()) {
+                statement.executeUpdate("DELETE FROM player_quest_progress");
+                statement.executeUpdate("DELETE FROM player_completed_quests");
+                statement.executeUpdate("DELETE FROM quest_reward_claims");
+                statement.executeUpdate("DELETE FROM quests");
+            }
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "INSERT INTO quests (quest_key, name, description, type, target, required_amount) VALUES (?, ?, ?, ?, ?, ?)")) {
+                for (int i = 0; i < count; i++) {
+                    ps.setString(1, "bench_" + i);
+                    ps.setString(2, "Benchmark Quest " + i);
+                    ps.setString(3, "A quest used by the benchmarks.\nIt has two lines of description.");
+                    ps.setString(4, type.name());
+                    ps.setString(5, targets.get(i % targets.size()));
+                    ps.setInt(6, requiredAmount);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+        }
+        getQuestManager().reloadQuests(true).join();
+        return new ArrayList<>(getQuestManager().getAllQuests());
+    }
+
+    public Player join(UUID playerUUID) {
+        Player player = player(playerUUID);
+        ONLINE.put(playerUUID, player);
+        getQuestManager().prefetchPlayerProgress(playerUUID).join();
+        getQuestManager().loadPlayerProgress(player);
+        return player;
+    }
+
+    public void quit(Player player) {
+        getQuestManager().unloadPlayerProgress(player).join();
+        ONLINE.remove(player.getUniqueId());
+    }
+
+    public Object renderQuest(Player player, QuestSystem.Quest quest) {
+        return plugin.getQuestGUI().renderQuest(player, quest);
+    }
+
+    public Object renderLeaderboard() {
+        return leaderboardGUI.getLeaderboardData();
+    }
+
+    public void preLogin(UUID playerUUID) {
+        Player player = player(playerUUID);
+        listener.onAsyncPlayerPreLogin(new AsyncPlayerPreLoginEvent(player.getName(), InetAddress.getLoopbackAddress(), playerUUID));
+    }
+
+    public Player fireJoin(UUID playerUUID) {
+        Player player = player(playerUUID);
+        ONLINE.put(playerUUID, player);
+        listener.onPlayerJoin(new PlayerJoinEvent(player, null));
+        return player;
+    }
+
+    public void fireQuit(Player player) {
+        listener.onPlayerQuit(new PlayerQuitEvent(player, null));
+        ONLINE.remove(player.getUniqueId());
+    }
+
+    public void fireKill(Player killer, EntityType type) {
+        LivingEntity entity = proxy(LivingEntity.class, (proxy, method, args) -> switch (method.getName()) {
+            case "getKiller" -> killer;
+            case "getType" -> type;
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "equals" -> proxy == args[0];
+            default -> defaultValue(method);
+        });
+        DamageSource source = proxy(DamageSource.class, (proxy, method, args) -> defaultValue(method));
+        listener.onEntityDeath(new EntityDeathEvent(entity, source, new ArrayList<>()));
+    }
+
+    /**
+     * Switches the scheduler from running tasks inline to a tick clock driven by {@link #tick()}.
+     * Synchronous tasks then run on the thread calling {@code tick()}, asynchronous ones on a shared pool.
+     */
+    public void startTicking() {
+        clock.ticking = true;
+    }
+
+    public void tick() {
+        clock.tick();
+    }
+
+    public long getCurrentTick() {
+        return clock.currentTick;
+    }
+
+    @Override
+    public void close() throws IOException {
+        plugin.onDisable();
+        CLOCKS.remove(plugin);
+        ONLINE.clear();
+        try (Stream<Path> files = Files.walk(dataFolder)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    public static Player player(UUID playerUUID) {
+        String name = "bench-" + Long.toHexString(playerUUID.getLeastSignificantBits() & 0xFFFFFFL);
+        return proxy(Player.class, (proxy, method, args) -> switch (method.getName()) {
+            case "getUniqueId" -> playerUUID;
+            case "getName", "getDisplayName" -> name;
+            case "isOnline" -> true;
+            case "hashCode" -> playerUUID.hashCode();
+            case "equals" -> proxy == args[0];
+            case "toString" -> name;
+            default -> defaultValue(method);
+        });
+    }
+
+    private static synchronized Server server() {
+        if (server != null) return server;
+
+        BukkitScheduler scheduler = proxy(BukkitScheduler.class, (proxy, method, args) -> {
+            String name = method.getName();
+            if (!name.startsWith("runTask") || !(args[0] instanceof Plugin owner) || !(args[1] instanceof Runnable runnable)) {
+                return defaultValue(method);
+            }
+            boolean async = name.endsWith("Asynchronously");
+            long delay = args.length > 2 ? (long) args[2] : 0L;
+            long period = args.length > 3 ? (long) args[3] : 0L;
+            return CLOCKS.get(owner).schedule(owner, runnable, async, delay, period);
+        });
+        // Items never get meta: InvUI's ItemBuilder then skips display names and lore, which it would otherwise
+        // hand to NMS through InventoryAccess, and that only exists on a real server. Renders measure the
+        // plugin's template and lore work plus ItemStack creation, not meta serialization.
+        ItemFactory itemFactory = proxy(ItemFactory.class, (proxy, method, args) -> switch (method.getName()) {
+            case "getItemMeta", "asMetaFor" -> null;
+            case "isApplicable" -> true;
+            case "updateMaterial" -> args[1];
+            case "equals" -> args.length == 2 ? args[0] == args[1] : proxy == args[0];
+            case "hashCode" -> System.identityHashCode(proxy);
+            default -> throw new UnsupportedOperationException("QuestHarness does not stub ItemFactory#" + method.getName());
+        });
+
+        server = proxy(Server.class, (proxy, method, args) -> switch (method.getName()) {
+            case "getLogger" -> LOGGER;
+            case "getScheduler" -> scheduler;
+            case "getItemFactory" -> itemFactory;
+            case "getPlayer" -> args[0] instanceof UUID playerUUID ? ONLINE.get(playerUUID) : null;
+            case "getOnlinePlayers" -> List.copyOf(ONLINE.values());
+            case "getPluginCommand" -> command((String) args[0]);
+            case "getPluginManager" -> proxy(org.bukkit.plugin.PluginManager.class, (p, m, a) -> defaultValue(m));
+            case "getServicesManager" -> proxy(org.bukkit.plugin.ServicesManager.class, (p, m, a) -> defaultValue(m));
+            case "isPrimaryThread" -> true;
+            case "getName", "getVersion", "getBukkitVersion" -> "QuestBenchmarks";
+            default -> defaultValue(method);
+        });
+        Bukkit.setServer(server);
+        return server;
+    }
+
+    private static final class Clock {
+        private final PriorityQueue<ScheduledTask> queue = new PriorityQueue<>(
+                Comparator.comparingLong((ScheduledTask task) -> task.dueTick).thenComparingInt(task -> task.id));
+        private volatile boolean ticking;
+        private volatile long currentTick;
+
+        private BukkitTask schedule(Plugin owner, Runnable runnable, boolean async, long delay, long period) {
+            ScheduledTask task = new ScheduledTask(TASK_IDS.incrementAndGet(), runnable, async, period);
+            BukkitTask handle = proxy(BukkitTask.class, (proxy, method, args) -> switch (method.getName()) {
+                case "cancel" -> {
+                    task.cancelled = true;
+                    yield null;
+                }
+                case "isCancelled" -> task.cancelled;
+                case "isSync" -> !async;
+                case "getTaskId" -> task.id;
+                case "getOwner" -> owner;
+                case "hashCode" -> task.id;
+                case "equals" -> proxy == args[0];
+                default -> defaultValue(method);
+            });
+            if (period <= 0 && !ticking) {
+                runnable.run();
+                return handle;
+            }
+            synchronized (queue) {
+                task.dueTick = currentTick + Math.max(1L, delay);
+                queue.add(task);
+            }
+            return handle;
+        }
+
+        private void tick() {
+            long now = ++currentTick;
+            List<ScheduledTask> due = new ArrayList<>();
+            synchronized (queue) {
+                while (!queue.isEmpty() && queue.peek().dueTick <= now) {
+                    due.add(queue.poll());
+                }
+            }
+            for (ScheduledTask task : due) {
+                if (task.cancelled) continue;
+                if (task.async) {
+                    ASYNC.execute(task::run);
+                } else {
+                    task.run();
+                }
+                if (task.period > 0) {
+                    synchronized (queue) {
+                        task.dueTick = now + task.period;
+                        queue.add(task);
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class ScheduledTask {
+        private final int id;
+        private final Runnable runnable;
+        private final boolean async;
+        private final long period;
+        private long dueTick;
+        private volatile boolean cancelled;
+
+        private ScheduledTask(int id, Runnable runnable, boolean async, long period) {
+            this.id = id;
+            this.runnable = runnable;
+            this.async = async;
+            this.period = period;
+        }
+
+        private void run() {
+            try {
+                runnable.run();
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Scheduled task " + id + " failed", e);
+            }
+        }
+    }
+
+    private static PluginCommand command(String name) {
+        QuestSystem owner = enabling;
+        if (owner == null) return null;
+        try {
+            Constructor<PluginCommand> constructor = PluginCommand.class.getDeclaredConstructor(String.class, Plugin.class);
+            constructor.setAccessible(true);
+            return constructor.newInstance(name, owner);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not create the /" + name + " command", e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(QuestHarness.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static Object defaultValue(Method method) {
+        Class<?> type = method.getReturnType();
+        if (!type.isPrimitive() || type == void.class) return null;
+        if (type == boolean.class) return false;
+        if (type == char.class) return '\0';
+        if (type == long.class) return 0L;
+        if (type == float.class) return 0F;
+        if (type == double.class) return 0D;
+        if (type == byte.class) return (byte) 0;
+        if (type == short.class) return (short) 0;
+        return 0;
+    }
+}
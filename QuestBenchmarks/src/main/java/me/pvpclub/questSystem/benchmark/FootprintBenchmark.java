@@ -0,0 +1,48 @@
+package me.pvpclub.questSystem.benchmark;
+
+import me.pvpclub.questSystem.QuestSystem.PlayerProgressStore;
+import me.pvpclub.questSystem.QuestSystem.PlayerQuestData;
+import me.pvpclub.questSystem.QuestSystem.QuestStatus;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds one player's progress in the compact store and in the former map layout.
+ * With {@code -prof gc}, {@code gc.alloc.rate.norm} bounds the retained size of each; the store
+ * figure also includes the arrays discarded while it grows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FootprintBenchmark {
+
+    @Param({"16", "256", "2048"})
+    public int entries;
+
+    private final UUID playerUUID = UUID.randomUUID();
+
+    @Benchmark
+    public PlayerProgressStore progressStore() {
+        PlayerProgressStore store = new PlayerProgressStore();
+        for (int index = 0; index < entries; index++) {
+            store.set(index, index, QuestStatus.IN_PROGRESS);
+        }
+        return store;
+    }
+
+    @Benchmark
+    public Map<Integer, PlayerQuestData> progressMap() {
+        Map<Integer, PlayerQuestData> map = new ConcurrentHashMap<>();
+        for (int questId = 0; questId < entries; questId++) {
+            map.put(questId, new PlayerQuestData(playerUUID, questId, questId, QuestStatus.IN_PROGRESS));
+        }
+        return map;
+    }
+}
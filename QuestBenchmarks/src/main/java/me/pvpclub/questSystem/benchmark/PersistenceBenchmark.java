@@ -0,0 +1,72 @@
+package me.pvpclub.questSystem.benchmark;
+
+import me.pvpclub.questSystem.QuestHarness;
+import me.pvpclub.questSystem.QuestSystem.PlayerQuestData;
+import me.pvpclub.questSystem.QuestSystem.ProgressWriteBehind;
+import me.pvpclub.questSystem.QuestSystem.Quest;
+import me.pvpclub.questSystem.QuestSystem.QuestStatus;
+import me.pvpclub.questSystem.QuestSystem.QuestType;
+import org.bukkit.entity.Player;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PersistenceBenchmark {
+
+    @Param({"1", "64", "512"})
+    public int entries;
+
+    @Param({"false", "true"})
+    public boolean journal;
+
+    private QuestHarness harness;
+    private ProgressWriteBehind writeBehind;
+    private int[] questIds;
+    private UUID savingPlayer;
+    private UUID loadingPlayer;
+    private int progress;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        harness = QuestHarness.start(Map.of("persistence.journal.enabled", journal));
+        List<Quest> created = harness.createQuests(entries, QuestType.KILL_MOBS, List.of("ZOMBIE"), Integer.MAX_VALUE);
+        questIds = created.stream().mapToInt(Quest::getId).toArray();
+        writeBehind = harness.getPlugin().getProgressWriteBehind();
+
+        savingPlayer = UUID.randomUUID();
+        loadingPlayer = UUID.randomUUID();
+        for (int questId : questIds) {
+            writeBehind.markDirty(new PlayerQuestData(loadingPlayer, questId, 1, QuestStatus.IN_PROGRESS));
+        }
+        writeBehind.flushAll();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        harness.close();
+    }
+
+    @Benchmark
+    public void saveBatch() {
+        progress++;
+        for (int questId : questIds) {
+            writeBehind.markDirty(new PlayerQuestData(savingPlayer, questId, progress, QuestStatus.IN_PROGRESS, progress));
+        }
+        writeBehind.flushAll();
+    }
+
+    @Benchmark
+    public void loadSession() {
+        Player player = harness.join(loadingPlayer);
+        harness.quit(player);
+    }
+}
@@ -0,0 +1,77 @@
+package me.pvpclub.questSystem.benchmark;
+
+import me.pvpclub.questSystem.QuestHarness;
+import me.pvpclub.questSystem.QuestSystem.Quest;
+import me.pvpclub.questSystem.QuestSystem.QuestType;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.Player;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProgressBenchmark {
+    private static final List<String> OTHER_TARGETS = List.of("SKELETON", "SPIDER", "CREEPER", "WITCH", "SLIME", "ENDERMAN", "BLAZE");
+
+    @Param({"16", "256", "2048"})
+    public int quests;
+
+    @Param({"1", "16", "128"})
+    public int inProgress;
+
+    private QuestHarness harness;
+    private Player player;
+    private int zombie;
+    private int skeleton;
+    private int pig;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        harness = QuestHarness.start(Map.of("persistence.journal.enabled", false));
+        int started = Math.min(inProgress, quests);
+        List<String> targets = new ArrayList<>(quests);
+        for (int i = 0; i < quests; i++) {
+            targets.add(i < started ? "ZOMBIE" : OTHER_TARGETS.get(i % OTHER_TARGETS.size()));
+        }
+        List<Quest> created = harness.createQuests(quests, QuestType.KILL_MOBS, targets, Integer.MAX_VALUE);
+
+        player = harness.join(UUID.randomUUID());
+        for (Quest quest : created) {
+            if (quest.getTarget().equals("ZOMBIE")) {
+                harness.getQuestManager().startQuest(player, quest);
+            }
+        }
+        zombie = EntityType.ZOMBIE.ordinal();
+        skeleton = EntityType.SKELETON.ordinal();
+        pig = EntityType.PIG.ordinal();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        harness.close();
+    }
+
+    @Benchmark
+    public void killTrackedMob() {
+        harness.getQuestManager().incrementQuestProgress(player, QuestType.KILL_MOBS, zombie);
+    }
+
+    @Benchmark
+    public void killMobWithoutStartedQuest() {
+        harness.getQuestManager().incrementQuestProgress(player, QuestType.KILL_MOBS, skeleton);
+    }
+
+    @Benchmark
+    public void killUntrackedMob() {
+        harness.getQuestManager().incrementQuestProgress(player, QuestType.KILL_MOBS, pig);
+    }
+}
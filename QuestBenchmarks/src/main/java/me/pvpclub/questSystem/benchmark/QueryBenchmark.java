@@ -0,0 +1,64 @@
+package me.pvpclub.questSystem.benchmark;
+
+import me.pvpclub.questSystem.QuestHarness;
+import me.pvpclub.questSystem.QuestSystem.PlayerQuestData;
+import me.pvpclub.questSystem.QuestSystem.Quest;
+import me.pvpclub.questSystem.QuestSystem.QuestType;
+import org.bukkit.entity.Player;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryBenchmark {
+
+    @Param({"16", "256", "2048"})
+    public int quests;
+
+    private QuestHarness harness;
+    private Player player;
+    private int startedQuestId;
+    private int untouchedQuestId;
+    private int unknownQuestId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        harness = QuestHarness.start(Map.of("persistence.journal.enabled", false));
+        List<Quest> created = harness.createQuests(quests, QuestType.KILL_MOBS, List.of("ZOMBIE", "SKELETON"), 100);
+        player = harness.join(UUID.randomUUID());
+
+        Quest started = created.get(0);
+        harness.getQuestManager().startQuest(player, started);
+        startedQuestId = started.getId();
+        untouchedQuestId = created.get(created.size() - 1).getId();
+        unknownQuestId = created.stream().mapToInt(Quest::getId).max().orElse(0) + 1;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        harness.close();
+    }
+
+    @Benchmark
+    public PlayerQuestData startedQuest() {
+        return harness.getQuestManager().getPlayerQuestData(player, startedQuestId);
+    }
+
+    @Benchmark
+    public PlayerQuestData untouchedQuest() {
+        return harness.getQuestManager().getPlayerQuestData(player, untouchedQuestId);
+    }
+
+    @Benchmark
+    public PlayerQuestData unknownQuest() {
+        return harness.getQuestManager().getPlayerQuestData(player, unknownQuestId);
+    }
+}
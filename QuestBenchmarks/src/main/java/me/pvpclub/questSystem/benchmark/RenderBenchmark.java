@@ -0,0 +1,75 @@
+package me.pvpclub.questSystem.benchmark;
+
+import me.pvpclub.questSystem.QuestHarness;
+import me.pvpclub.questSystem.QuestSystem.ProgressBatch;
+import me.pvpclub.questSystem.QuestSystem.Quest;
+import me.pvpclub.questSystem.QuestSystem.QuestType;
+import org.bukkit.entity.Player;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RenderBenchmark {
+    // Templates cache in-progress items for the first 1024 steps; progress past that renders on every call.
+    private static final int REQUIRED_AMOUNT = 2048;
+    private static final int UNCACHED_PROGRESS = 1500;
+
+    @Param({"28", "256"})
+    public int quests;
+
+    private QuestHarness harness;
+    private Player player;
+    private List<Quest> all;
+    private Quest tracked;
+    private Player grinder;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        harness = QuestHarness.start(Map.of("persistence.journal.enabled", false));
+        all = harness.createQuests(quests, QuestType.KILL_MOBS, List.of("ZOMBIE", "SKELETON", "SPIDER"), REQUIRED_AMOUNT);
+        player = harness.join(UUID.randomUUID());
+        for (int i = 0; i < all.size(); i += 2) {
+            harness.getQuestManager().startQuest(player, all.get(i));
+        }
+        tracked = all.get(0);
+
+        grinder = harness.join(UUID.randomUUID());
+        harness.getQuestManager().startQuest(grinder, tracked);
+        harness.getQuestManager().applyProgress(new ProgressBatch().add(grinder, QuestType.KILL_MOBS, tracked.getTarget(), UNCACHED_PROGRESS));
+        if (harness.getQuestManager().getQuestProgress(grinder, tracked) != UNCACHED_PROGRESS) {
+            throw new IllegalStateException("Could not move the uncached quest past the template cache");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        harness.close();
+    }
+
+    @Benchmark
+    public void renderQuestList(Blackhole blackhole) {
+        for (Quest quest : all) {
+            blackhole.consume(harness.renderQuest(player, quest));
+        }
+    }
+
+    @Benchmark
+    public Object renderInProgressQuest() {
+        return harness.renderQuest(player, tracked);
+    }
+
+    @Benchmark
+    public Object renderUncachedQuest() {
+        return harness.renderQuest(grinder, tracked);
+    }
+}
@@ -0,0 +1,165 @@
+package me.pvpclub.questSystem.simulation;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public final class LoadScenario {
+    private static final String CONFIG_PREFIX = "config.";
+
+    private int players = 200;
+    private int quests = 100;
+    private int requiredAmount = 50;
+    private List<String> targets = List.of("ZOMBIE", "SKELETON", "CREEPER", "SPIDER");
+    private double killRate = 0.5D;
+    private int killBurst = 4;
+    private int questsPerSession = 5;
+    private double leaderboardRate = 0.01D;
+    private int sessionSeconds = 120;
+    private int offlineSeconds = 15;
+    private int durationSeconds = 300;
+    private int warmupSeconds = 30;
+    private int reportSeconds = 10;
+    private int loginThreads = 8;
+    private boolean realTime = true;
+    private long seed = 42L;
+    private final Map<String, Object> settings = new LinkedHashMap<>();
+
+    private LoadScenario() {
+        settings.put("leaderboard.refresh-minutes", 1);
+        settings.put("metrics.jmx", false);
+        settings.put("metrics.timers", true);
+    }
+
+    public static LoadScenario parse(String[] args) {
+        LoadScenario scenario = new LoadScenario();
+        for (String arg : args) {
+            String option = arg.startsWith("--") ? arg.substring(2) : arg;
+            int separator = option.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected key=value but got '" + arg + "'");
+            }
+            scenario.set(option.substring(0, separator), option.substring(separator + 1));
+        }
+        if (scenario.players <= 0 || scenario.quests <= 0 || scenario.durationSeconds <= 0) {
+            throw new IllegalArgumentException("players, quests and duration-seconds must be positive");
+        }
+        return scenario;
+    }
+
+    private void set(String key, String value) {
+        if (key.startsWith(CONFIG_PREFIX)) {
+            settings.put(key.substring(CONFIG_PREFIX.length()), configValue(value));
+            return;
+        }
+        switch (key) {
+            case "players" -> players = Integer.parseInt(value);
+            case "quests" -> quests = Integer.parseInt(value);
+            case "required-amount" -> requiredAmount = Integer.parseInt(value);
+            case "targets" -> targets = List.of(value.toUpperCase().split(","));
+            case "kill-rate" -> killRate = Double.parseDouble(value);
+            case "kill-burst" -> killBurst = Math.max(1, Integer.parseInt(value));
+            case "quests-per-session" -> questsPerSession = Integer.parseInt(value);
+            case "leaderboard-rate" -> leaderboardRate = Double.parseDouble(value);
+            case "session-seconds" -> sessionSeconds = Math.max(1, Integer.parseInt(value));
+            case "offline-seconds" -> offlineSeconds = Math.max(0, Integer.parseInt(value));
+            case "duration-seconds" -> durationSeconds = Integer.parseInt(value);
+            case "warmup-seconds" -> warmupSeconds = Math.max(0, Integer.parseInt(value));
+            case "report-seconds" -> reportSeconds = Math.max(1, Integer.parseInt(value));
+            case "login-threads" -> loginThreads = Math.max(1, Integer.parseInt(value));
+            case "real-time" -> realTime = Boolean.parseBoolean(value);
+            case "seed" -> seed = Long.parseLong(value);
+            default -> throw new IllegalArgumentException("Unknown scenario option '" + key + "'");
+        }
+    }
+
+    private static Object configValue(String value) {
+        if (value.equalsIgnoreCase("true") || value.equalsIgnoreCase("false")) {
+            return Boolean.parseBoolean(value);
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException ignored) {
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException ignored) {
+        }
+        return value;
+    }
+
+    public int getPlayers() {
+        return players;
+    }
+
+    public int getQuests() {
+        return quests;
+    }
+
+    public int getRequiredAmount() {
+        return requiredAmount;
+    }
+
+    public List<String> getTargets() {
+        return targets;
+    }
+
+    public double getKillRate() {
+        return killRate;
+    }
+
+    public int getKillBurst() {
+        return killBurst;
+    }
+
+    public int getQuestsPerSession() {
+        return questsPerSession;
+    }
+
+    public double getLeaderboardRate() {
+        return leaderboardRate;
+    }
+
+    public int getSessionSeconds() {
+        return sessionSeconds;
+    }
+
+    public int getOfflineSeconds() {
+        return offlineSeconds;
+    }
+
+    public int getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    public int getWarmupSeconds() {
+        return warmupSeconds;
+    }
+
+    public int getReportSeconds() {
+        return reportSeconds;
+    }
+
+    public int getLoginThreads() {
+        return loginThreads;
+    }
+
+    public boolean isRealTime() {
+        return realTime;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public Map<String, Object> getSettings() {
+        return settings;
+    }
+
+    public String describe() {
+        return String.format("%d players, %d quests (x%d %s), %.2f kills/s per player in bursts of %d, %d quest starts per session, "
+                        + "%.3f leaderboard opens/s per player, %ds sessions with %ds offline, %ds run after %ds warmup, settings %s",
+                players, quests, requiredAmount, targets, killRate, killBurst, questsPerSession,
+                leaderboardRate, sessionSeconds, offlineSeconds, durationSeconds, warmupSeconds, settings);
+    }
+}
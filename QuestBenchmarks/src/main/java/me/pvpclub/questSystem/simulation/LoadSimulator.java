@@ -0,0 +1,404 @@
+package me.pvpclub.questSystem.simulation;
+
+import me.pvpclub.questSystem.QuestHarness;
+import me.pvpclub.questSystem.QuestSystem.MetricSnapshot;
+import me.pvpclub.questSystem.QuestSystem.Quest;
+import me.pvpclub.questSystem.QuestSystem.QuestMetrics;
+import me.pvpclub.questSystem.QuestSystem.QuestStatus;
+import me.pvpclub.questSystem.QuestSystem.QuestType;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.Player;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives synthetic players through the plugin's listener and menu code paths against an embedded H2 database,
+ * one simulated server tick at a time. Run it from the benchmarks jar with scenario options as {@code key=value}:
+ * <pre>java -cp benchmarks.jar me.pvpclub.questSystem.simulation.LoadSimulator players=500 kill-rate=1 config.database.h2.pool-size=8</pre>
+ */
+public final class LoadSimulator {
+    private static final int TICKS_PER_SECOND = 20;
+    private static final long TICK_NANOS = TimeUnit.SECONDS.toNanos(1) / TICKS_PER_SECOND;
+    private static final List<QuestMetrics.Query> WRITES = List.of(QuestMetrics.Query.FLUSH_PROGRESS, QuestMetrics.Query.SAVE_NAME,
+            QuestMetrics.Query.REWARD_CLAIMS, QuestMetrics.Query.COMPACT_PROGRESS);
+
+    private enum Operation {
+        TICK,
+        PRE_LOGIN,
+        JOIN,
+        KILL,
+        START_QUEST,
+        LEADERBOARD,
+        QUIT
+    }
+
+    private final LoadScenario scenario;
+    private final QuestHarness harness;
+    private final Random random;
+    private final List<Quest> quests;
+    private final EntityType[] targets;
+    private final SimulatedPlayer[] players;
+    private final ExecutorService logins;
+    private final Queue<SimulatedPlayer> loggedIn = new ConcurrentLinkedQueue<>();
+    private final Map<Operation, LatencyRecorder> latencies = new EnumMap<>(Operation.class);
+    private final LatencyRecorder intervalTicks = new LatencyRecorder();
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+    private long measureStarted;
+    private long baselineHeap;
+    private long peakHeap;
+    private long lateTicks;
+    private int peakWaiting;
+    private long intervalStarted;
+    private long intervalWrites;
+
+    private LoadSimulator(LoadScenario scenario) throws Exception {
+        this.scenario = scenario;
+        this.random = new Random(scenario.getSeed());
+        this.harness = QuestHarness.start(scenario.getSettings());
+        this.quests = harness.createQuests(scenario.getQuests(), QuestType.KILL_MOBS, scenario.getTargets(), scenario.getRequiredAmount());
+        this.targets = scenario.getTargets().stream().map(EntityType::valueOf).toArray(EntityType[]::new);
+        this.players = new SimulatedPlayer[scenario.getPlayers()];
+        long rampTicks = Math.max(1L, (long) scenario.getWarmupSeconds() * TICKS_PER_SECOND);
+        for (int i = 0; i < players.length; i++) {
+            players[i] = new SimulatedPlayer(new UUID(scenario.getSeed(), i), (long) (random.nextDouble() * rampTicks));
+        }
+        this.logins = Executors.newFixedThreadPool(scenario.getLoginThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "LoadSimulator-login");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new LatencyRecorder());
+        }
+        harness.startTicking();
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadScenario scenario = LoadScenario.parse(args);
+        System.out.println("Scenario: " + scenario.describe());
+        LoadSimulator simulator = new LoadSimulator(scenario);
+        try {
+            simulator.run();
+        } finally {
+            simulator.shutdown();
+        }
+    }
+
+    private void run() {
+        long warmupTicks = (long) scenario.getWarmupSeconds() * TICKS_PER_SECOND;
+        long totalTicks = warmupTicks + (long) scenario.getDurationSeconds() * TICKS_PER_SECOND;
+        long reportTicks = (long) scenario.getReportSeconds() * TICKS_PER_SECOND;
+        long runStarted = System.nanoTime();
+        beginMeasurement();
+
+        for (long tick = 1; tick <= totalTicks; tick++) {
+            long started = System.nanoTime();
+            runTick(tick);
+            long elapsed = System.nanoTime() - started;
+            latencies.get(Operation.TICK).record(elapsed);
+            intervalTicks.record(elapsed);
+            if (elapsed > TICK_NANOS) {
+                lateTicks++;
+            }
+            samplePeaks();
+
+            if (tick == warmupTicks) {
+                System.out.println("Warmup finished, measuring for " + scenario.getDurationSeconds() + "s.");
+                beginMeasurement();
+            } else if (tick % reportTicks == 0) {
+                reportInterval(tick);
+            }
+
+            if (scenario.isRealTime()) {
+                long deadline = runStarted + tick * TICK_NANOS;
+                long remaining = deadline - System.nanoTime();
+                if (remaining > 0) {
+                    LockSupport.parkNanos(remaining);
+                }
+            }
+        }
+        reportTotals();
+    }
+
+    private void runTick(long tick) {
+        harness.tick();
+
+        SimulatedPlayer joined;
+        while ((joined = loggedIn.poll()) != null) {
+            join(joined, tick);
+        }
+
+        double burstChance = scenario.getKillRate() / TICKS_PER_SECOND / scenario.getKillBurst();
+        double leaderboardChance = scenario.getLeaderboardRate() / TICKS_PER_SECOND;
+        for (SimulatedPlayer simulated : players) {
+            switch (simulated.state) {
+                case OFFLINE -> {
+                    if (tick >= simulated.nextChange) {
+                        simulated.state = SimulatedPlayer.State.LOGGING_IN;
+                        logins.execute(() -> preLogin(simulated));
+                    }
+                }
+                case ONLINE -> {
+                    if (tick >= simulated.nextChange) {
+                        quit(simulated, tick);
+                        continue;
+                    }
+                    if (random.nextDouble() < burstChance) {
+                        for (int i = 0; i < scenario.getKillBurst(); i++) {
+                            EntityType target = targets[random.nextInt(targets.length)];
+                            long started = System.nanoTime();
+                            harness.fireKill(simulated.player, target);
+                            latencies.get(Operation.KILL).record(System.nanoTime() - started);
+                        }
+                    }
+                    if (random.nextDouble() < leaderboardChance) {
+                        long started = System.nanoTime();
+                        harness.renderLeaderboard();
+                        latencies.get(Operation.LEADERBOARD).record(System.nanoTime() - started);
+                    }
+                }
+                case LOGGING_IN -> {
+                }
+            }
+        }
+    }
+
+    private void preLogin(SimulatedPlayer simulated) {
+        long started = System.nanoTime();
+        harness.preLogin(simulated.uuid);
+        latencies.get(Operation.PRE_LOGIN).record(System.nanoTime() - started);
+        loggedIn.add(simulated);
+    }
+
+    private void join(SimulatedPlayer simulated, long tick) {
+        long started = System.nanoTime();
+        simulated.player = harness.fireJoin(simulated.uuid);
+        latencies.get(Operation.JOIN).record(System.nanoTime() - started);
+        simulated.state = SimulatedPlayer.State.ONLINE;
+        simulated.nextChange = tick + exponentialTicks(scenario.getSessionSeconds());
+
+        for (int i = 0; i < scenario.getQuestsPerSession(); i++) {
+            Quest quest = quests.get(random.nextInt(quests.size()));
+            started = System.nanoTime();
+            if (harness.getQuestManager().getQuestStatus(simulated.player, quest) == QuestStatus.AVAILABLE) {
+                harness.getQuestManager().startQuest(simulated.player, quest);
+            }
+            latencies.get(Operation.START_QUEST).record(System.nanoTime() - started);
+        }
+    }
+
+    private void quit(SimulatedPlayer simulated, long tick) {
+        long started = System.nanoTime();
+        harness.fireQuit(simulated.player);
+        latencies.get(Operation.QUIT).record(System.nanoTime() - started);
+        simulated.player = null;
+        simulated.state = SimulatedPlayer.State.OFFLINE;
+        simulated.nextChange = tick + (scenario.getOfflineSeconds() == 0 ? 1L : exponentialTicks(scenario.getOfflineSeconds()));
+    }
+
+    private long exponentialTicks(int meanSeconds) {
+        return Math.max(1L, (long) (-Math.log(1D - random.nextDouble()) * meanSeconds * TICKS_PER_SECOND));
+    }
+
+    private void samplePeaks() {
+        peakHeap = Math.max(peakHeap, memory.getHeapMemoryUsage().getUsed());
+        peakWaiting = Math.max(peakWaiting, harness.getPlugin().getMetrics().getThreadsAwaitingConnection());
+    }
+
+    private void beginMeasurement() {
+        latencies.values().forEach(LatencyRecorder::reset);
+        intervalTicks.reset();
+        harness.getPlugin().getMetrics().resetStatistics();
+        lateTicks = 0L;
+        peakWaiting = 0;
+        System.gc();
+        baselineHeap = memory.getHeapMemoryUsage().getUsed();
+        peakHeap = baselineHeap;
+        measureStarted = System.nanoTime();
+        intervalStarted = measureStarted;
+        intervalWrites = 0L;
+    }
+
+    private void reportInterval(long tick) {
+        QuestMetrics metrics = harness.getPlugin().getMetrics();
+        long now = System.nanoTime();
+        long writes = writtenRows(metrics);
+        double seconds = (now - intervalStarted) / 1e9D;
+        long heap = memory.getHeapMemoryUsage().getUsed();
+
+        long online = Arrays.stream(players).filter(simulated -> simulated.state == SimulatedPlayer.State.ONLINE).count();
+        System.out.printf("[%5ds] online %d/%d  tick p50 %.2f / p99 %.2f ms  writes %.0f rows/s  pending %d  "
+                        + "pool %d active, %d waiting  db tasks %d queued  heap %d MB%n",
+                tick / TICKS_PER_SECOND, online, players.length, intervalTicks.percentile(0.50D) / 1e6D,
+                intervalTicks.percentile(0.99D) / 1e6D, (writes - intervalWrites) / seconds, metrics.getPendingWrites(),
+                metrics.getActiveConnections(), metrics.getThreadsAwaitingConnection(), metrics.getQueuedDatabaseTasks(),
+                heap >> 20);
+        intervalTicks.reset();
+        intervalStarted = now;
+        intervalWrites = writes;
+    }
+
+    private void reportTotals() {
+        QuestMetrics metrics = harness.getPlugin().getMetrics();
+        double seconds = (System.nanoTime() - measureStarted) / 1e9D;
+        long peak = Math.max(peakHeap, memory.getHeapMemoryUsage().getUsed());
+        System.gc();
+        long retained = memory.getHeapMemoryUsage().getUsed();
+
+        System.out.println();
+        System.out.printf("Simulated operations over %.1fs (µs)%n", seconds);
+        System.out.printf("  %-12s %10s %10s %10s %10s %10s%n", "operation", "count", "mean", "p50", "p99", "max");
+        for (Operation operation : Operation.values()) {
+            LatencyRecorder recorder = latencies.get(operation);
+            if (recorder.count() == 0) continue;
+            System.out.printf("  %-12s %10d %10.1f %10.1f %10.1f %10.1f%n", operation, recorder.count(), recorder.mean() / 1e3D,
+                    recorder.percentile(0.50D) / 1e3D, recorder.percentile(0.99D) / 1e3D, recorder.max() / 1e3D);
+        }
+        System.out.printf("  ticks over %d ms: %d%n", TICK_NANOS / 1_000_000L, lateTicks);
+
+        printSnapshots("Plugin handlers (µs, power-of-two buckets)", metrics.getHandlerTimings());
+        printSnapshots("Plugin queries (µs, power-of-two buckets)", metrics.getQueryTimings());
+
+        long rows = writtenRows(metrics);
+        long statements = 0L;
+        for (MetricSnapshot snapshot : metrics.getQueryTimings()) {
+            if (WRITES.contains(QuestMetrics.Query.valueOf(snapshot.getName()))) {
+                statements += snapshot.getCount();
+            }
+        }
+        MetricSnapshot wait = metrics.getConnectionWait();
+        System.out.println();
+        System.out.printf("DB writes: %.1f rows/s in %.1f write transactions/s%n", rows / seconds, statements / seconds);
+        System.out.printf("Pool wait: %d acquisitions, p50 %.0f µs, p99 %.0f µs, max %.1f µs, peak %d threads waiting%n",
+                wait.getCount(), wait.getP50Micros(), wait.getP99Micros(), wait.getMaxMicros(), peakWaiting);
+        System.out.printf("Heap: %d MB at start of measurement, %d MB peak, %d MB retained after GC (%+d MB)%n",
+                baselineHeap >> 20, peak >> 20, retained >> 20, (retained - baselineHeap) >> 20);
+    }
+
+    private static void printSnapshots(String title, List<MetricSnapshot> snapshots) {
+        System.out.println();
+        System.out.println(title);
+        for (MetricSnapshot snapshot : snapshots) {
+            if (snapshot.getCount() == 0) continue;
+            System.out.printf("  %-18s %10d %10.1f %10.0f %10.0f %10.1f%n", snapshot.getName(), snapshot.getCount(),
+                    snapshot.getMeanMicros(), snapshot.getP50Micros(), snapshot.getP99Micros(), snapshot.getMaxMicros());
+        }
+    }
+
+    private static long writtenRows(QuestMetrics metrics) {
+        long rows = 0L;
+        for (MetricSnapshot snapshot : metrics.getQueryTimings()) {
+            if (WRITES.contains(QuestMetrics.Query.valueOf(snapshot.getName()))) {
+                rows += snapshot.getRows();
+            }
+        }
+        return rows;
+    }
+
+    private void shutdown() throws Exception {
+        logins.shutdownNow();
+        for (SimulatedPlayer simulated : players) {
+            if (simulated.state == SimulatedPlayer.State.ONLINE) {
+                harness.fireQuit(simulated.player);
+            }
+        }
+        harness.close();
+    }
+
+    private static final class SimulatedPlayer {
+        private enum State {
+            OFFLINE,
+            LOGGING_IN,
+            ONLINE
+        }
+
+        private final UUID uuid;
+        private volatile State state = State.OFFLINE;
+        private long nextChange;
+        private Player player;
+
+        private SimulatedPlayer(UUID uuid, long nextChange) {
+            this.uuid = uuid;
+            this.nextChange = nextChange;
+        }
+    }
+
+    /**
+     * Fixed-size log-linear histogram: every power of two is split into {@value #SUB_BUCKETS} linear steps, so
+     * percentiles are within 1/{@value #SUB_BUCKETS} of the recorded value however long the run is.
+     */
+    private static final class LatencyRecorder {
+        private static final int SUB_BITS = 4;
+        private static final int SUB_BUCKETS = 1 << SUB_BITS;
+        private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+        private final long[] buckets = new long[BUCKETS];
+        private long count;
+        private long total;
+        private long max;
+
+        private synchronized void record(long nanos) {
+            long value = Math.max(0L, nanos);
+            buckets[index(value)]++;
+            count++;
+            total += value;
+            max = Math.max(max, value);
+        }
+
+        private synchronized void reset() {
+            Arrays.fill(buckets, 0L);
+            count = 0L;
+            total = 0L;
+            max = 0L;
+        }
+
+        private synchronized long count() {
+            return count;
+        }
+
+        private synchronized double mean() {
+            return count == 0 ? 0D : total / (double) count;
+        }
+
+        private synchronized long max() {
+            return max;
+        }
+
+        private synchronized double percentile(double fraction) {
+            if (count == 0) return 0D;
+            long rank = Math.max(1L, (long) Math.ceil(count * fraction));
+            long seen = 0L;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += buckets[i];
+                if (seen >= rank) {
+                    return Math.min(max, upperBound(i));
+                }
+            }
+            return max;
+        }
+
+        private static int index(long value) {
+            int shift = Math.max(0, 64 - Long.numberOfLeadingZeros(value) - SUB_BITS - 1);
+            return shift * SUB_BUCKETS + (int) (value >>> shift);
+        }
+
+        private static long upperBound(int index) {
+            int shift = Math.max(0, index / SUB_BUCKETS - 1);
+            return ((long) (index - shift * SUB_BUCKETS + 1) << shift) - 1;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package me.pvpclub.questSystem;
+
+import me.pvpclub.questSystem.QuestSystem.Quest;
+import me.pvpclub.questSystem.QuestSystem.QuestStatus;
+import me.pvpclub.questSystem.QuestSystem.QuestType;
+import org.bukkit.Material;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.junit.jupiter.api.Test;
+import xyz.xenondevs.invui.item.ItemProvider;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs the harness the way the benchmarks and the load simulator do, so a broken stub fails the module build
+ * instead of the first benchmark fork.
+ */
+class QuestHarnessTest {
+
+    @Test
+    void rendersQuestsAndCountsKills() throws Exception {
+        try (QuestHarness harness = QuestHarness.start(Map.of("persistence.journal.enabled", false))) {
+            assertEquals(Material.TINTED_GLASS, QuestSystem.QuestGUI.BORDER.get().getType());
+
+            List<Quest> quests = harness.createQuests(3, QuestType.KILL_MOBS, List.of("ZOMBIE"), 2);
+            Quest quest = quests.get(0);
+            Player player = harness.join(UUID.randomUUID());
+            assertEquals(Material.BOOK, render(harness, player, quest).getType());
+
+            harness.getQuestManager().startQuest(player, quest);
+            harness.fireKill(player, EntityType.ZOMBIE);
+            assertEquals(1, harness.getQuestManager().getQuestProgress(player, quest));
+            assertEquals(Material.DIAMOND_SWORD, render(harness, player, quest).getType());
+
+            harness.fireKill(player, EntityType.ZOMBIE);
+            assertEquals(QuestStatus.COMPLETED, harness.getQuestManager().getQuestStatus(player, quest));
+            assertEquals(Material.EMERALD_BLOCK, render(harness, player, quest).getType());
+
+            harness.quit(player);
+        }
+    }
+
+    private static ItemStack render(QuestHarness harness, Player player, Quest quest) {
+        return ((ItemProvider) harness.renderQuest(player, quest)).get();
+    }
+}
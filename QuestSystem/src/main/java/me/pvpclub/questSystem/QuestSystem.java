@@ -2,46 +2,148 @@ package me.pvpclub.questSystem;
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import net.md_5.bungee.api.ChatMessageType;
+import net.md_5.bungee.api.chat.TextComponent;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
+import org.bukkit.Location;
 import org.bukkit.Material;
+import org.bukkit.boss.BarColor;
+import org.bukkit.boss.BarStyle;
+import org.bukkit.boss.BossBar;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
+import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.entity.EntityType;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.entity.EntityDeathEvent;
+import org.bukkit.event.entity.EntityPickupItemEvent;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerDropItemEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerMoveEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerTeleportEvent;
 import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.PluginDescriptionFile;
+import org.bukkit.plugin.ServicePriority;
+import org.bukkit.plugin.IllegalPluginAccessException;
 import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.plugin.java.JavaPluginLoader;
+import org.bukkit.scheduler.BukkitTask;
 import xyz.xenondevs.invui.gui.Gui;
 import xyz.xenondevs.invui.gui.PagedGui;
+import org.bukkit.event.inventory.ClickType;
+import org.bukkit.event.inventory.CraftItemEvent;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryDragEvent;
+import org.bukkit.event.inventory.InventoryType;
 import xyz.xenondevs.invui.item.Item;
+import xyz.xenondevs.invui.item.ItemProvider;
+import xyz.xenondevs.invui.item.ItemWrapper;
+import xyz.xenondevs.invui.item.impl.AbstractItem;
 import xyz.xenondevs.invui.item.builder.ItemBuilder;
 import xyz.xenondevs.invui.item.impl.SimpleItem;
 import xyz.xenondevs.invui.window.Window;
 
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import javax.management.ConstructorParameters;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 public final class QuestSystem extends JavaPlugin {
 
+    private QuestMetrics metrics;
     private DatabaseManager databaseManager;
+    private DatabaseExecutor databaseExecutor;
+    private ProgressWriteBehind progressWriteBehind;
     private QuestManager questManager;
+    private InventoryTracker inventoryTracker;
+    private ProgressNotifier progressNotifier;
+    private RewardService rewardService;
+    private ResetCompactor resetCompactor;
+    private LeaderboardService leaderboardService;
+    private QuestGUI questGUI;
     private QuestCommand questCommand;
+    private StartupPipeline startup;
+
+    public QuestSystem() {
+    }
+
+    QuestSystem(JavaPluginLoader loader, PluginDescriptionFile description, File dataFolder, File file) {
+        super(loader, description, dataFolder, file);
+    }
 
     @Override
     public void onEnable() {
         saveDefaultConfig();
+        metrics = new QuestMetrics(this);
 
         try {
             databaseManager = new DatabaseManager(this);
@@ -52,53 +154,251 @@ public final class QuestSystem extends JavaPlugin {
             getServer().getPluginManager().disablePlugin(this);
             return;
         }
+        databaseExecutor = new DatabaseExecutor(this, databaseManager.getMaximumPoolSize());
+        startup = new StartupPipeline(this);
+
+        progressWriteBehind = new ProgressWriteBehind(this);
+        progressWriteBehind.recover();
+        progressWriteBehind.start();
+
+        progressNotifier = new ProgressNotifier(this);
+        progressNotifier.start();
+        rewardService = new RewardService(this);
+        rewardService.start();
 
         questManager = new QuestManager(this);
-        questManager.loadQuestsFromDatabase();
+        questGUI = new QuestGUI(this);
+        inventoryTracker = new InventoryTracker(this);
+        inventoryTracker.start();
+        resetCompactor = new ResetCompactor(this);
+        resetCompactor.start();
+
+        leaderboardService = new LeaderboardService(this);
+
+        getServer().getServicesManager().register(QuestProgressService.class, new ProgressService(this), this, ServicePriority.Normal);
 
         questCommand = new QuestCommand(this);
         Objects.requireNonNull(getCommand("quests")).setExecutor(questCommand);
-        getServer().getPluginManager().registerEvents(new QuestListener(this), this);
+        QuestListener listener = new QuestListener(this);
+        getServer().getPluginManager().registerEvents(listener, this);
+        metrics.start();
+
+        startup.stage("schema", databaseManager::migrateSchema)
+                .stage("quests", questManager::loadQuestsFromDatabase, "schema")
+                .stage("leaderboard", leaderboardService::start, "schema")
+                .stage("journal", progressWriteBehind::flushRecovered, "schema", "quests")
+                .start();
+        startup.whenReady(progressWriteBehind::startFlushing);
+        startup.whenReady(() -> Bukkit.getOnlinePlayers().forEach(listener::handleJoin));
 
         getLogger().info("QuestSystem has been enabled!");
     }
 
     @Override
     public void onDisable() {
+        getServer().getServicesManager().unregisterAll(this);
+        if (metrics != null) {
+            metrics.stop();
+        }
+        if (questManager != null) {
+            questManager.stopPolling();
+        }
+        if (inventoryTracker != null) {
+            inventoryTracker.stop();
+        }
+        if (progressNotifier != null) {
+            progressNotifier.stop();
+        }
+        if (rewardService != null) {
+            rewardService.stop();
+        }
+        if (resetCompactor != null) {
+            resetCompactor.stop();
+        }
+        if (leaderboardService != null) {
+            leaderboardService.stop();
+        }
+        if (databaseExecutor != null) {
+            databaseExecutor.shutdown();
+        }
+        if (progressWriteBehind != null) {
+            progressWriteBehind.shutdown();
+        }
         if (databaseManager != null) {
             databaseManager.close();
         }
         getLogger().info("QuestSystem has been disabled!");
     }
 
+    public QuestMetrics getMetrics() {
+        return metrics;
+    }
+
     public DatabaseManager getDatabaseManager() {
         return databaseManager;
     }
 
+    public DatabaseExecutor getDatabaseExecutor() {
+        return databaseExecutor;
+    }
+
+    public ProgressWriteBehind getProgressWriteBehind() {
+        return progressWriteBehind;
+    }
+
     public QuestManager getQuestManager() {
         return questManager;
     }
 
+    public InventoryTracker getInventoryTracker() {
+        return inventoryTracker;
+    }
+
+    public ProgressNotifier getProgressNotifier() {
+        return progressNotifier;
+    }
+
+    public RewardService getRewardService() {
+        return rewardService;
+    }
+
+    public QuestGUI getQuestGUI() {
+        return questGUI;
+    }
+
+    public LeaderboardService getLeaderboardService() {
+        return leaderboardService;
+    }
+
+    public StartupPipeline getStartup() {
+        return startup;
+    }
+
+    public static class StartupPipeline {
+        private final QuestSystem plugin;
+        private final CompletableFuture<Void> begin = new CompletableFuture<>();
+        private final CompletableFuture<Void> ready = new CompletableFuture<>();
+        private final Map<String, CompletableFuture<Void>> stages = new LinkedHashMap<>();
+        private final Map<String, Long> timings = new ConcurrentHashMap<>();
+        private final AtomicReference<String> failedStage = new AtomicReference<>();
+        private long startedAt;
+
+        public StartupPipeline(QuestSystem plugin) {
+            this.plugin = plugin;
+        }
+
+        public StartupPipeline stage(String name, Supplier<? extends CompletableFuture<?>> action, String... dependsOn) {
+            if (stages.containsKey(name)) {
+                throw new IllegalArgumentException("Startup stage '" + name + "' is already defined");
+            }
+            CompletableFuture<?>[] dependencies = new CompletableFuture<?>[dependsOn.length + 1];
+            dependencies[0] = begin;
+            for (int i = 0; i < dependsOn.length; i++) {
+                dependencies[i + 1] = Objects.requireNonNull(stages.get(dependsOn[i]), "Unknown startup stage '" + dependsOn[i] + "'");
+            }
+            CompletableFuture<Void> future = CompletableFuture.allOf(dependencies).thenCompose(ignored -> {
+                long started = System.nanoTime();
+                CompletableFuture<?> running;
+                try {
+                    running = action.get();
+                } catch (RuntimeException e) {
+                    running = CompletableFuture.failedFuture(e);
+                }
+                return running.<Void>handle((result, error) -> {
+                    if (error != null) {
+                        failedStage.compareAndSet(null, name);
+                        throw error instanceof CompletionException completion ? completion : new CompletionException(error);
+                    }
+                    timings.put(name, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+                    return null;
+                });
+            });
+            stages.put(name, future);
+            return this;
+        }
+
+        public void start() {
+            startedAt = System.nanoTime();
+            CompletableFuture.allOf(stages.values().toArray(new CompletableFuture<?>[0])).whenComplete((ignored, error) -> {
+                if (error != null) {
+                    fail(error);
+                    return;
+                }
+                long totalMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+                String breakdown = stages.keySet().stream()
+                        .map(name -> name + " " + timings.get(name) + " ms")
+                        .collect(Collectors.joining(", "));
+                plugin.getLogger().info("Quests are ready after " + totalMillis + " ms (" + breakdown + ").");
+                ready.complete(null);
+            });
+            begin.complete(null);
+        }
+
+        private void fail(Throwable error) {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            plugin.getLogger().severe("Startup stage '" + failedStage.get() + "' failed: " + cause.getMessage() + ". Disabling plugin.");
+            ready.completeExceptionally(cause);
+            Bukkit.getScheduler().runTask(plugin, () -> plugin.getServer().getPluginManager().disablePlugin(plugin));
+        }
+
+        public boolean isReady() {
+            return ready.isDone() && !ready.isCompletedExceptionally();
+        }
+
+        /**
+         * Runs the action right away once startup has finished, otherwise queues it for the main thread.
+         * Queued actions are dropped if startup fails.
+         */
+        public void whenReady(Runnable action) {
+            if (isReady()) {
+                action.run();
+            } else {
+                ready.thenRun(() -> Bukkit.getScheduler().runTask(plugin, action));
+            }
+        }
+
+        public boolean awaitReady(long timeoutMillis) {
+            try {
+                ready.get(timeoutMillis, TimeUnit.MILLISECONDS);
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } catch (ExecutionException | TimeoutException e) {
+                return false;
+            }
+        }
+    }
+
     public static class DatabaseManager {
+        private static final int MIGRATION_BATCH = 200;
 
         private final HikariDataSource dataSource;
         private final QuestSystem plugin;
+        private final SqlDialect dialect;
 
         public DatabaseManager(QuestSystem plugin) throws SQLException {
             this.plugin = plugin;
             FileConfiguration config = plugin.getConfig();
 
+            String type = config.getString("database.type", "H2");
+            if (type.equalsIgnoreCase("MYSQL")) {
+                dialect = new MySqlDialect();
+            } else if (type.equalsIgnoreCase("H2")) {
+                dialect = new H2Dialect();
+            } else {
+                throw new SQLException("Unsupported database type '" + type + "', expected H2 or MYSQL.");
+            }
+
             HikariConfig hikariConfig = new HikariConfig();
-            hikariConfig.setJdbcUrl(String.format("jdbc:mysql://%s:%d/%s",
-                    config.getString("database.host"),
-                    config.getInt("database.port"),
-                    config.getString("database.database")));
-            hikariConfig.setUsername(config.getString("database.username"));
-            hikariConfig.setPassword(config.getString("database.password"));
-            hikariConfig.addDataSourceProperty("cachePrepStmts", "true");
-            hikariConfig.addDataSourceProperty("prepStmtCacheSize", "250");
-            hikariConfig.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
-            hikariConfig.setMaximumPoolSize(10);
+            hikariConfig.setPoolName("QuestSystem-" + dialect.getName());
+            hikariConfig.setMetricsTrackerFactory((poolName, poolStats) -> new IMetricsTracker() {
+                @Override
+                public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                    plugin.getMetrics().recordConnectionWait(elapsedAcquiredNanos);
+                }
+            });
+            dialect.configure(hikariConfig, config, plugin.getDataFolder());
 
             this.dataSource = new HikariDataSource(hikariConfig);
             try (Connection conn = dataSource.getConnection()) {
@@ -106,419 +406,4576 @@ public final class QuestSystem extends JavaPlugin {
                     throw new SQLException("Could not establish a valid database connection.");
                 }
             }
-            setupTables();
+            plugin.getLogger().info("Using " + dialect.getName() + " storage with a pool of " + hikariConfig.getMaximumPoolSize() + " connections.");
+        }
+
+        private record Migration(int version, String description, MigrationStep step) {
+        }
+
+        @FunctionalInterface
+        private interface MigrationStep {
+            void apply(Connection connection) throws SQLException;
+        }
+
+        private List<Migration> migrations() {
+            return List.of(
+                    new Migration(1, "Create quest, progress and player name tables", connection -> {
+                        createTable(connection, "quests");
+                        createTable(connection, "player_quest_progress");
+                        createTable(connection, "player_names");
+                    }),
+                    new Migration(2, "Track quest edits and progress versions", connection -> {
+                        ensureColumn(connection, "quests", "updated_at");
+                        ensureColumn(connection, "player_quest_progress", "version");
+                        ensureIndex(connection, "idx_progress_status_player", "player_quest_progress", "status, player_uuid");
+                    }),
+                    new Migration(3, "Create reward claims", connection -> createTable(connection, "quest_reward_claims")),
+                    new Migration(4, "Add quest categories", connection -> ensureColumn(connection, "quests", "category")),
+                    new Migration(5, "Add daily and weekly resets", connection -> {
+                        ensureColumn(connection, "quests", "reset_period");
+                        ensureColumn(connection, "player_quest_progress", "reset_epoch");
+                        ensureColumn(connection, "quest_reward_claims", "reset_epoch");
+                        ensureIndex(connection, "idx_progress_quest_epoch", "player_quest_progress", "quest_id, reset_epoch");
+                    }),
+                    new Migration(6, "Store completed quests as bitmaps", connection -> {
+                        createTable(connection, "player_completed_quests");
+                        ensureIndex(connection, "idx_completed_count", "player_completed_quests", "completed_count");
+                        migrateCompletedRows(connection);
+                    }),
+                    new Migration(7, "Create quest prerequisites", connection -> createTable(connection, "quest_prerequisites")),
+                    new Migration(8, "Index reward claims by quest and epoch", connection ->
+                            ensureIndex(connection, "idx_claims_quest_epoch", "quest_reward_claims", "quest_id, reset_epoch")));
         }
 
-        private void setupTables() {
-            CompletableFuture.runAsync(() -> {
+        public CompletableFuture<Void> migrateSchema() {
+            return plugin.getDatabaseExecutor().run(DatabaseExecutor.Priority.HIGH, () -> {
+                long started = plugin.getMetrics().startTimer();
                 try (Connection connection = getConnection()) {
-                    String createQuestsTable = "CREATE TABLE IF NOT EXISTS quests ("
-                            + "id INT AUTO_INCREMENT PRIMARY KEY,"
-                            + "quest_key VARCHAR(255) NOT NULL UNIQUE,"
-                            + "name VARCHAR(255) NOT NULL,"
-                            + "description TEXT NOT NULL,"
-                            + "`type` VARCHAR(50) NOT NULL,"
-                            + "target VARCHAR(255),"
-                            + "required_amount INT NOT NULL"
-                            + ");";
-
-                    String createPlayerProgressTable = "CREATE TABLE IF NOT EXISTS player_quest_progress ("
-                            + "id INT AUTO_INCREMENT PRIMARY KEY,"
-                            + "player_uuid VARCHAR(36) NOT NULL,"
-                            + "quest_id INT NOT NULL,"
-                            + "progress INT DEFAULT 0,"
-                            + "status VARCHAR(50) NOT NULL,"
-                            + "FOREIGN KEY (quest_id) REFERENCES quests(id),"
-                            + "UNIQUE KEY (player_uuid, quest_id)"
-                            + ");";
-
-                    try (PreparedStatement statement1 = connection.prepareStatement(createQuestsTable);
-                         PreparedStatement statement2 = connection.prepareStatement(createPlayerProgressTable)) {
-                        statement1.execute();
-                        statement2.execute();
-                        plugin.getLogger().info("Database tables verified/created successfully.");
-                        insertExampleQuest();
+                    createTable(connection, "schema_version");
+                    Set<Integer> applied = new HashSet<>();
+                    try (PreparedStatement ps = connection.prepareStatement("SELECT version FROM schema_version");
+                         ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            applied.add(rs.getInt(1));
+                        }
                     }
+
+                    int version = 0;
+                    for (Migration migration : migrations()) {
+                        version = migration.version();
+                        if (applied.contains(version)) continue;
+                        long migrationStarted = System.nanoTime();
+                        migration.step().apply(connection);
+                        long durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - migrationStarted);
+                        recordMigration(connection, migration, durationMillis);
+                        plugin.getLogger().info("Applied schema migration " + version + " (" + migration.description() + ") in " + durationMillis + " ms.");
+                    }
+                    plugin.getLogger().info("Database schema is at version " + version + ".");
+                    insertExampleQuest();
                 } catch (SQLException e) {
-                    plugin.getLogger().severe("Could not create database tables!");
+                    plugin.getLogger().severe("Could not migrate the database schema!");
                     e.printStackTrace();
+                    throw new CompletionException(e);
+                } finally {
+                    plugin.getMetrics().recordQuery(QuestMetrics.Query.SETUP_TABLES, started, 0);
                 }
             });
         }
 
-        private void insertExampleQuest() {
-            String insertSQL = "INSERT INTO quests (quest_key, name, description, `type`, target, required_amount) " +
-                    "VALUES ('zombie_hunter_1', 'Zombie Hunter', 'Kill 10 zombies to prove your strength.', 'KILL_MOBS', 'ZOMBIE', 10) " +
-                    "ON DUPLICATE KEY UPDATE name=VALUES(name);";
-
-            try (Connection connection = getConnection();
-                 PreparedStatement statement = connection.prepareStatement(insertSQL)) {
-                statement.executeUpdate();
-                plugin.getLogger().info("Example quest 'Zombie Hunter' loaded into database.");
+        private void recordMigration(Connection connection, Migration migration, long durationMillis) throws SQLException {
+            try (PreparedStatement ps = connection.prepareStatement(
+                    "INSERT INTO schema_version (version, description, duration_ms) VALUES (?, ?, ?)")) {
+                ps.setInt(1, migration.version());
+                ps.setString(2, migration.description());
+                ps.setLong(3, durationMillis);
+                ps.executeUpdate();
             } catch (SQLException e) {
+                // Another server sharing the database applied the same migration first; every step is idempotent.
+                if (e.getSQLState() == null || !e.getSQLState().startsWith("23")) throw e;
             }
         }
 
-        public Connection getConnection() throws SQLException {
-            return dataSource.getConnection();
+        private boolean tableExists(Connection connection, String table) throws SQLException {
+            DatabaseMetaData metaData = connection.getMetaData();
+            for (String tableName : new String[]{table, table.toUpperCase(Locale.ROOT)}) {
+                try (ResultSet rs = metaData.getTables(connection.getCatalog(), null, tableName, null)) {
+                    if (rs.next()) return true;
+                }
+            }
+            return false;
         }
 
-        public void close() {
-            if (dataSource != null && !dataSource.isClosed()) {
-                dataSource.close();
+        private void createTable(Connection connection, String table) throws SQLException {
+            if (tableExists(connection, table)) return;
+            try (PreparedStatement statement = connection.prepareStatement(dialect.createTableSql(table))) {
+                statement.execute();
             }
         }
-    }
 
-    public static class QuestManager {
-        private final QuestSystem plugin;
-        private final Map<Integer, Quest> quests = new ConcurrentHashMap<>();
-        private final Map<UUID, Map<Integer, PlayerQuestData>> playerProgressCache = new ConcurrentHashMap<>();
+        private void ensureColumn(Connection connection, String table, String column) throws SQLException {
+            ensureColumn(connection, table, column, dialect.columnDefinition(table, column));
+        }
 
-        public QuestManager(QuestSystem plugin) {
-            this.plugin = plugin;
+        private void ensureColumn(Connection connection, String table, String column, String definition) throws SQLException {
+            DatabaseMetaData metaData = connection.getMetaData();
+            for (String tableName : new String[]{table, table.toUpperCase(Locale.ROOT)}) {
+                try (ResultSet rs = metaData.getColumns(connection.getCatalog(), null, tableName, null)) {
+                    while (rs.next()) {
+                        if (column.equalsIgnoreCase(rs.getString("COLUMN_NAME"))) return;
+                    }
+                }
+            }
+            try (PreparedStatement statement = connection.prepareStatement("ALTER TABLE " + table + " ADD COLUMN " + column + " " + definition)) {
+                statement.execute();
+                plugin.getLogger().info("Added column " + column + " to " + table + ".");
+            }
         }
 
-        public void loadQuestsFromDatabase() {
-            CompletableFuture.runAsync(() -> {
-                try (Connection conn = plugin.getDatabaseManager().getConnection();
-                     PreparedStatement ps = conn.prepareStatement("SELECT * FROM quests");
-                     ResultSet rs = ps.executeQuery()) {
-                    quests.clear();
+        private void ensureIndex(Connection connection, String name, String table, String columns) throws SQLException {
+            DatabaseMetaData metaData = connection.getMetaData();
+            for (String tableName : new String[]{table, table.toUpperCase(Locale.ROOT)}) {
+                try (ResultSet rs = metaData.getIndexInfo(connection.getCatalog(), null, tableName, false, true)) {
                     while (rs.next()) {
-                        Quest quest = new Quest(
-                                rs.getInt("id"),
-                                rs.getString("name"),
-                                Arrays.asList(rs.getString("description").split("\n")),
-                                QuestType.valueOf(rs.getString("type")),
-                                rs.getString("target"),
-                                rs.getInt("required_amount")
-                        );
-                        quests.put(quest.getId(), quest);
-                    }
-                    plugin.getLogger().info("Successfully loaded " + quests.size() + " quests.");
-                } catch (SQLException e) {
-                    plugin.getLogger().severe("Could not load quests from database.");
-                    e.printStackTrace();
+                        if (name.equalsIgnoreCase(rs.getString("INDEX_NAME"))) return;
+                    }
                 }
-            });
+            }
+            try (PreparedStatement statement = connection.prepareStatement("CREATE INDEX " + name + " ON " + table + " (" + columns + ")")) {
+                statement.execute();
+                plugin.getLogger().info("Created index " + name + " on " + table + ".");
+            }
         }
 
-        public void loadPlayerProgress(Player player) {
-            UUID playerUUID = player.getUniqueId();
-            CompletableFuture.runAsync(() -> {
-                Map<Integer, PlayerQuestData> progressMap = new ConcurrentHashMap<>();
-                String sql = "SELECT quest_id, progress, status FROM player_quest_progress WHERE player_uuid = ?";
-                try (Connection conn = plugin.getDatabaseManager().getConnection();
-                     PreparedStatement ps = conn.prepareStatement(sql)) {
-                    ps.setString(1, playerUUID.toString());
-                    ResultSet rs = ps.executeQuery();
+        private void migrateCompletedRows(Connection connection) throws SQLException {
+            String sql = "SELECT DISTINCT p.player_uuid FROM player_quest_progress p JOIN quests q ON q.id = p.quest_id " +
+                    "WHERE p.status = 'COMPLETED' AND (q.reset_period IS NULL OR q.reset_period = 'NONE') LIMIT " + MIGRATION_BATCH;
+            int players = 0;
+            int folded = 0;
+            while (true) {
+                List<UUID> batch = new ArrayList<>();
+                try (PreparedStatement ps = connection.prepareStatement(sql);
+                     ResultSet rs = ps.executeQuery()) {
                     while (rs.next()) {
-                        PlayerQuestData data = new PlayerQuestData(
-                                playerUUID, rs.getInt("quest_id"), rs.getInt("progress"), QuestStatus.valueOf(rs.getString("status"))
-                        );
-                        progressMap.put(data.getQuestId(), data);
+                        batch.add(UUID.fromString(rs.getString(1)));
+                    }
+                }
+                if (batch.isEmpty()) break;
+
+                int batchFolded = 0;
+                connection.setAutoCommit(false);
+                try {
+                    for (UUID playerUUID : batch) {
+                        batchFolded += foldCompletedRows(connection, playerUUID);
                     }
-                    playerProgressCache.put(playerUUID, progressMap);
+                    connection.commit();
                 } catch (SQLException e) {
-                    plugin.getLogger().severe("Could not load quest progress for " + player.getName());
-                    e.printStackTrace();
+                    connection.rollback();
+                    throw e;
+                } finally {
+                    connection.setAutoCommit(true);
                 }
-            });
+                players += batch.size();
+                folded += batchFolded;
+                if (batchFolded == 0) break;
+            }
+            if (players > 0) {
+                plugin.getLogger().info("Moved " + folded + " completed quest rows of " + players + " players into completion bitmaps.");
+            }
         }
 
-        public void unloadPlayerProgress(Player player) {
-            playerProgressCache.remove(player.getUniqueId());
+        public int foldCompletedRows(Connection connection, UUID playerUUID) throws SQLException {
+            List<Integer> questIds = new ArrayList<>();
+            try (PreparedStatement ps = connection.prepareStatement(
+                    "SELECT p.quest_id FROM player_quest_progress p JOIN quests q ON q.id = p.quest_id " +
+                            "WHERE p.player_uuid = ? AND p.status = 'COMPLETED' AND (q.reset_period IS NULL OR q.reset_period = 'NONE')")) {
+                ps.setString(1, playerUUID.toString());
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        questIds.add(rs.getInt(1));
+                    }
+                }
+            }
+            if (!questIds.isEmpty()) {
+                mergeCompletedQuests(connection, playerUUID, questIds);
+            }
+            return questIds.size();
         }
 
-        public Collection<Quest> getAllQuests() {
-            return Collections.unmodifiableCollection(quests.values());
-        }
+        public void mergeCompletedQuests(Connection connection, UUID playerUUID, Collection<Integer> questIds) throws SQLException {
+            String uuid = playerUUID.toString();
+            try (PreparedStatement ps = connection.prepareStatement(dialect.insertCompletionBitmapSql())) {
+                ps.setString(1, uuid);
+                ps.setBytes(2, CompletionBitmap.encode(new BitSet()));
+                ps.executeUpdate();
+            }
 
-        public Quest getQuestById(int id) {
-            return quests.get(id);
-        }
+            BitSet completed;
+            try (PreparedStatement ps = connection.prepareStatement("SELECT bitmap FROM player_completed_quests WHERE player_uuid = ? FOR UPDATE")) {
+                ps.setString(1, uuid);
+                try (ResultSet rs = ps.executeQuery()) {
+                    completed = rs.next() ? CompletionBitmap.decode(rs.getBytes(1)) : new BitSet();
+                }
+            }
+            int before = completed.cardinality();
+            questIds.forEach(completed::set);
+            if (completed.cardinality() != before) {
+                try (PreparedStatement ps = connection.prepareStatement(
+                        "UPDATE player_completed_quests SET bitmap = ?, completed_count = ? WHERE player_uuid = ?")) {
+                    ps.setBytes(1, CompletionBitmap.encode(completed));
+                    ps.setInt(2, completed.cardinality());
+                    ps.setString(3, uuid);
+                    ps.executeUpdate();
+                }
+            }
 
-        public PlayerQuestData getPlayerQuestData(Player player, int questId) {
-            Map<Integer, PlayerQuestData> playerData = playerProgressCache.get(player.getUniqueId());
-            if (playerData == null) {
-                return new PlayerQuestData(player.getUniqueId(), questId, 0, QuestStatus.AVAILABLE);
+            try (PreparedStatement ps = connection.prepareStatement("DELETE FROM player_quest_progress WHERE player_uuid = ? AND quest_id = ?")) {
+                for (int questId : questIds) {
+                    ps.setString(1, uuid);
+                    ps.setInt(2, questId);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
             }
-            return playerData.getOrDefault(questId, new PlayerQuestData(player.getUniqueId(), questId, 0, QuestStatus.AVAILABLE));
         }
 
-        public void startQuest(Player player, Quest quest) {
-            PlayerQuestData data = getPlayerQuestData(player, quest.getId());
-            if (data.getStatus() == QuestStatus.AVAILABLE) {
-                data.setStatus(QuestStatus.IN_PROGRESS);
-                playerProgressCache.get(player.getUniqueId()).put(quest.getId(), data);
-                savePlayerQuestData(data);
-                player.sendMessage(ChatColor.GREEN + "Quest Started: " + quest.getName());
+        private void insertExampleQuest() {
+            try (Connection connection = getConnection();
+                 PreparedStatement statement = connection.prepareStatement(dialect.insertExampleQuestSql())) {
+                statement.executeUpdate();
+                plugin.getLogger().info("Example quest 'Zombie Hunter' loaded into database.");
+            } catch (SQLException e) {
             }
         }
 
-        public void incrementQuestProgress(Player player, QuestType type, String target) {
-            Map<Integer, PlayerQuestData> playerData = playerProgressCache.get(player.getUniqueId());
-            if (playerData == null) return;
+        public Connection getConnection() throws SQLException {
+            return dataSource.getConnection();
+        }
 
-            for (PlayerQuestData data : playerData.values()) {
-                if (data.getStatus() != QuestStatus.IN_PROGRESS) continue;
+        public HikariPoolMXBean getPoolStats() {
+            return dataSource.getHikariPoolMXBean();
+        }
 
-                Quest quest = getQuestById(data.getQuestId());
-                if (quest != null && quest.getType() == type && quest.getTarget().equalsIgnoreCase(target)) {
-                    data.setProgress(data.getProgress() + 1);
-                    player.sendMessage(String.format(ChatColor.YELLOW + "%s progress: %d/%d", quest.getName(), data.getProgress(), quest.getRequiredAmount()));
+        public SqlDialect getDialect() {
+            return dialect;
+        }
 
-                    if (data.getProgress() >= quest.getRequiredAmount()) {
-                        data.setStatus(QuestStatus.COMPLETED);
-                        player.sendMessage(ChatColor.GREEN + "Quest Completed: " + quest.getName() + "!");
-                    }
-                    savePlayerQuestData(data);
-                }
-            }
+        public int getMaximumPoolSize() {
+            return dataSource.getMaximumPoolSize();
         }
 
-        private void savePlayerQuestData(PlayerQuestData data) {
-            CompletableFuture.runAsync(() -> {
-                String sql = "INSERT INTO player_quest_progress (player_uuid, quest_id, progress, status) " +
-                        "VALUES (?, ?, ?, ?) ON DUPLICATE KEY UPDATE progress = VALUES(progress), status = VALUES(status)";
-                try (Connection conn = plugin.getDatabaseManager().getConnection();
-                     PreparedStatement ps = conn.prepareStatement(sql)) {
-                    ps.setString(1, data.getPlayerUUID().toString());
-                    ps.setInt(2, data.getQuestId());
-                    ps.setInt(3, data.getProgress());
-                    ps.setString(4, data.getStatus().name());
-                    ps.executeUpdate();
-                } catch (SQLException e) {
-                    plugin.getLogger().severe("Could not save quest progress for " + data.getPlayerUUID());
-                    e.printStackTrace();
-                }
-            });
+        public void close() {
+            if (dataSource != null && !dataSource.isClosed()) {
+                dataSource.close();
+            }
         }
     }
 
-    public static class QuestGUI {
-        private final QuestManager questManager;
+    public interface SqlDialect {
+        String getName();
 
-        public QuestGUI(QuestSystem plugin) {
-            this.questManager = plugin.getQuestManager();
-        }
+        void configure(HikariConfig hikariConfig, FileConfiguration config, File dataFolder);
 
-        public void openQuestList(Player player) {
-            List<Item> items = questManager.getAllQuests().stream()
-                    .map(quest -> createQuestItem(player, quest))
-                    .collect(Collectors.toList());
+        String createTableSql(String table);
 
-            Gui gui = PagedGui.items()
-                    .setStructure(
-                            "# # # # # # # # #",
-                            "# . . . . . . . #",
-                            "# . . . . . . . #",
-                            "# . . . . . . . #",
-                            "# . . . . . . . #",
-                            "# # # # # # # # #",
-                            "# # < # # # > # #")
-                    .addIngredient('#', new ItemBuilder(Material.TINTED_GLASS).setDisplayName(ChatColor.RESET.toString()))
-                    .addIngredient('<', xyz.xenondevs.invui.item.impl.controlitem.PageItem.previous.get())
-                    .addIngredient('>', xyz.xenondevs.invui.item.impl.controlitem.PageItem.next.get())
-                    .setContent(items)
-                    .build();
+        String columnDefinition(String table, String column);
 
-            Window.single().setViewer(player).setTitle(ChatColor.DARK_AQUA + "Available Quests").setGui(gui).open();
-        }
+        String upsertProgressSql();
 
-        private Item createQuestItem(Player player, Quest quest) {
-            PlayerQuestData data = questManager.getPlayerQuestData(player, quest.getId());
-            Material material = data.getStatus() == QuestStatus.COMPLETED ? Material.EMERALD_BLOCK : (data.getStatus() == QuestStatus.IN_PROGRESS ? Material.DIAMOND_SWORD : Material.BOOK);
+        String upsertPlayerNameSql();
 
-            ItemBuilder itemBuilder = new ItemBuilder(material).setDisplayName(ChatColor.GOLD + quest.getName());
-            List<String> lore = new ArrayList<>();
-            quest.getDescription().forEach(line -> lore.add(ChatColor.GRAY + line));
-            lore.add(" ");
-            lore.add(ChatColor.WHITE + "Objective: " + ChatColor.YELLOW + quest.getType().name().replace("_", " ") + " " + quest.getRequiredAmount() + " " + quest.getTarget());
-            lore.add(" ");
-            lore.add(ChatColor.WHITE + "Status: " + data.getStatus().getDisplayName());
+        String insertRewardClaimSql();
 
-            if (data.getStatus() == QuestStatus.IN_PROGRESS) {
-                lore.add(String.format(ChatColor.WHITE + "Progress: " + ChatColor.YELLOW + "%d / %d", data.getProgress(), quest.getRequiredAmount()));
-            }
+        String deleteExpiredProgressSql();
 
-            lore.add(" ");
-            if (data.getStatus() == QuestStatus.AVAILABLE) {
-                lore.add(ChatColor.GREEN + "Click to start this quest!");
-            }
+        String deleteExpiredClaimsSql();
 
-            itemBuilder.setLore(lore);
+        String insertCompletionBitmapSql();
 
-            return new SimpleItem(itemBuilder.get(), event -> {
-                if (data.getStatus() == QuestStatus.AVAILABLE) {
-                    questManager.startQuest(player, quest);
-                    player.closeInventory();
-                    openQuestList(player);
-                }
-            });
-        }
+        String insertExampleQuestSql();
     }
 
-    public static class LeaderboardGUI {
-        private final QuestSystem plugin;
-
-        public LeaderboardGUI(QuestSystem plugin) {
-            this.plugin = plugin;
+    public static class MySqlDialect implements SqlDialect {
+        @Override
+        public String getName() {
+            return "MySQL";
         }
 
-        public void openLeaderboard(Player player) {
-            CompletableFuture.supplyAsync(this::getLeaderboardData)
-                    .thenAccept(leaderboardItems -> {
-                        Bukkit.getScheduler().runTask(plugin, () -> {
-                            Gui gui = PagedGui.items()
-                                    .setStructure(
-                                            "# # # # # # # # #",
-                                            "# . . . . . . . #",
-                                            "# . . . . . . . #",
-                                            "# . . . . . . . #",
-                                            "# . . . . . . . #",
-                                            "# # # # # # # # #",
-                                            "# # < # # # > # #")
-                                    .addIngredient('#', new ItemBuilder(Material.TINTED_GLASS).setDisplayName(ChatColor.RESET.toString()))
-                                    .addIngredient('<', xyz.xenondevs.invui.item.impl.controlitem.PageItem.previous.get())
-                                    .addIngredient('>', xyz.xenondevs.invui.item.impl.controlitem.PageItem.next.get())
-                                    .setContent(leaderboardItems)
-                                    .build();
-                            Window.single().setViewer(player).setTitle(ChatColor.AQUA + "Global Quest Leaderboard").setGui(gui).open();
-                        });
-                    });
+        @Override
+        public void configure(HikariConfig hikariConfig, FileConfiguration config, File dataFolder) {
+            hikariConfig.setJdbcUrl(String.format("jdbc:mysql://%s:%d/%s",
+                    config.getString("database.mysql.host", "localhost"),
+                    config.getInt("database.mysql.port", 3306),
+                    config.getString("database.mysql.database")));
+            hikariConfig.setUsername(config.getString("database.mysql.username"));
+            hikariConfig.setPassword(config.getString("database.mysql.password"));
+            hikariConfig.addDataSourceProperty("cachePrepStmts", "true");
+            hikariConfig.addDataSourceProperty("prepStmtCacheSize", "250");
+            hikariConfig.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+            hikariConfig.addDataSourceProperty("useServerPrepStmts", "true");
+            hikariConfig.addDataSourceProperty("rewriteBatchedStatements", "true");
+            hikariConfig.setMaximumPoolSize(Math.max(1, config.getInt("database.mysql.pool-size", 10)));
         }
 
-        private List<Item> getLeaderboardData() {
-            List<Item> items = new ArrayList<>();
-            String sql = "SELECT p.player_uuid, COUNT(p.status) AS completed_quests, MAX(p.progress) AS progress " +
-                    "FROM player_quest_progress p " +
-                    "WHERE p.status = 'COMPLETED' " +
-                    "GROUP BY p.player_uuid " +
-                    "ORDER BY completed_quests DESC LIMIT 28;";
+        @Override
+        public String createTableSql(String table) {
+            return switch (table) {
+                case "schema_version" -> "CREATE TABLE schema_version ("
+                        + "version INT PRIMARY KEY,"
+                        + "description VARCHAR(255) NOT NULL,"
+                        + "applied_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,"
+                        + "duration_ms BIGINT NOT NULL"
+                        + ")";
+                case "quests" -> "CREATE TABLE quests ("
+                        + "id INT AUTO_INCREMENT PRIMARY KEY,"
+                        + "quest_key VARCHAR(255) NOT NULL UNIQUE,"
+                        + "name VARCHAR(255) NOT NULL,"
+                        + "description TEXT NOT NULL,"
+                        + "`type` VARCHAR(50) NOT NULL,"
+                        + "target VARCHAR(255),"
+                        + "required_amount INT NOT NULL"
+                        + ")";
+                case "player_quest_progress" -> "CREATE TABLE player_quest_progress ("
+                        + "id INT AUTO_INCREMENT PRIMARY KEY,"
+                        + "player_uuid VARCHAR(36) NOT NULL,"
+                        + "quest_id INT NOT NULL,"
+                        + "progress INT DEFAULT 0,"
+                        + "status VARCHAR(50) NOT NULL,"
+                        + "FOREIGN KEY (quest_id) REFERENCES quests(id),"
+                        + "UNIQUE KEY (player_uuid, quest_id)"
+                        + ")";
+                case "player_names" -> "CREATE TABLE player_names ("
+                        + "player_uuid VARCHAR(36) PRIMARY KEY,"
+                        + "name VARCHAR(16) NOT NULL"
+                        + ")";
+                case "quest_reward_claims" -> "CREATE TABLE quest_reward_claims ("
+                        + "player_uuid VARCHAR(36) NOT NULL,"
+                        + "quest_id INT NOT NULL,"
+                        + "claimed BOOLEAN NOT NULL DEFAULT FALSE,"
+                        + "claimed_at TIMESTAMP NULL,"
+                        + "PRIMARY KEY (player_uuid, quest_id),"
+                        + "FOREIGN KEY (quest_id) REFERENCES quests(id)"
+                        + ")";
+                case "player_completed_quests" -> "CREATE TABLE player_completed_quests ("
+                        + "player_uuid VARCHAR(36) PRIMARY KEY,"
+                        + "bitmap BLOB NOT NULL,"
+                        + "completed_count INT NOT NULL DEFAULT 0"
+                        + ")";
+                case "quest_prerequisites" -> "CREATE TABLE quest_prerequisites ("
+                        + "quest_id INT NOT NULL,"
+                        + "required_quest_id INT NOT NULL,"
+                        + "PRIMARY KEY (quest_id, required_quest_id),"
+                        + "FOREIGN KEY (quest_id) REFERENCES quests(id) ON DELETE CASCADE,"
+                        + "FOREIGN KEY (required_quest_id) REFERENCES quests(id) ON DELETE CASCADE"
+                        + ")";
+                default -> throw new IllegalArgumentException("Unknown table " + table);
+            };
+        }
 
-            try (Connection conn = plugin.getDatabaseManager().getConnection();
-                 PreparedStatement ps = conn.prepareStatement(sql);
-                 ResultSet rs = ps.executeQuery()) {
+        @Override
+        public String columnDefinition(String table, String column) {
+            return switch (table + "." + column) {
+                case "quests.updated_at" -> "TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3)";
+                case "quests.category" -> "VARCHAR(64) NULL";
+                case "quests.reset_period" -> "VARCHAR(16) NULL";
+                case "player_quest_progress.version", "player_quest_progress.reset_epoch", "quest_reward_claims.reset_epoch" -> "INT NOT NULL DEFAULT 0";
+                default -> throw new IllegalArgumentException("Unknown column " + table + "." + column);
+            };
+        }
 
-                int rank = 1;
-                while (rs.next()) {
-                    UUID playerUUID = UUID.fromString(rs.getString("player_uuid"));
-                    int completedQuests = rs.getInt("completed_quests");
+        @Override
+        public String upsertProgressSql() {
+            String newer = "MOD(VALUES(version) - version + 536870912, 536870912) BETWEEN 1 AND 268435455";
+            return "INSERT INTO player_quest_progress (player_uuid, quest_id, progress, status, version, reset_epoch) " +
+                    "VALUES (?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE " +
+                    "progress = IF(" + newer + ", VALUES(progress), progress), " +
+                    "status = IF(" + newer + ", VALUES(status), status), " +
+                    "reset_epoch = IF(" + newer + ", VALUES(reset_epoch), reset_epoch), " +
+                    "version = IF(" + newer + ", VALUES(version), version)";
+        }
 
-                    String playerName = Bukkit.getOfflinePlayer(playerUUID).getName();
-                    if (playerName == null) continue;
+        @Override
+        public String upsertPlayerNameSql() {
+            return "INSERT INTO player_names (player_uuid, name) VALUES (?, ?) ON DUPLICATE KEY UPDATE name = VALUES(name)";
+        }
 
-                    Material material;
-                    switch (rank) {
-                        case 1:
-                            material = Material.DIAMOND;
-                            break;
-                        case 2:
-                            material = Material.GOLD_INGOT;
-                            break;
-                        case 3:
-                            material = Material.IRON_INGOT;
-                            break;
-                        default:
-                            material = Material.STONE;
-                            break;
-                    }
+        @Override
+        public String insertRewardClaimSql() {
+            return "INSERT INTO quest_reward_claims (player_uuid, quest_id, claimed, reset_epoch) VALUES (?, ?, FALSE, ?) " +
+                    "ON DUPLICATE KEY UPDATE claimed = IF(reset_epoch = VALUES(reset_epoch), claimed, FALSE), reset_epoch = VALUES(reset_epoch)";
+        }
 
-                    ItemBuilder itemBuilder = new ItemBuilder(material);
-                    itemBuilder.setDisplayName(ChatColor.YELLOW.toString() + rank + ". " + ChatColor.AQUA + playerName);
+        @Override
+        public String deleteExpiredProgressSql() {
+            return "DELETE FROM player_quest_progress WHERE quest_id = ? AND reset_epoch <> ? LIMIT ?";
+        }
 
-                    List<String> lore = new ArrayList<>();
-                    lore.add(ChatColor.GRAY + "Completed Quests: " + ChatColor.WHITE + completedQuests);
-                    itemBuilder.setLore(lore);
+        @Override
+        public String deleteExpiredClaimsSql() {
+            return "DELETE FROM quest_reward_claims WHERE quest_id = ? AND reset_epoch < ? AND claimed = TRUE LIMIT ?";
+        }
 
-                    items.add(new SimpleItem(itemBuilder.get()));
-                    rank++;
-                }
+        @Override
+        public String insertCompletionBitmapSql() {
+            return "INSERT INTO player_completed_quests (player_uuid, bitmap, completed_count) VALUES (?, ?, 0) " +
+                    "ON DUPLICATE KEY UPDATE player_uuid = player_uuid";
+        }
 
-            } catch (SQLException e) {
-                plugin.getLogger().severe("Could not retrieve leaderboard data.");
-                e.printStackTrace();
-            }
-            return items;
+        @Override
+        public String insertExampleQuestSql() {
+            return "INSERT INTO quests (quest_key, name, description, `type`, target, required_amount) " +
+                    "VALUES ('zombie_hunter_1', 'Zombie Hunter', 'Kill 10 zombies to prove your strength.', 'KILL_MOBS', 'ZOMBIE', 10) " +
+                    "ON DUPLICATE KEY UPDATE name=VALUES(name);";
         }
     }
 
-    public static class QuestCommand implements CommandExecutor {
-        private final QuestGUI questGUI;
-        private final LeaderboardGUI leaderboardGUI;
-
-        public QuestCommand(QuestSystem plugin) {
-            this.questGUI = new QuestGUI(plugin);
-            this.leaderboardGUI = new LeaderboardGUI(plugin);
+    public static class H2Dialect implements SqlDialect {
+        @Override
+        public String getName() {
+            return "H2";
         }
 
         @Override
-        public boolean onCommand(CommandSender sender, Command cmd, String label, String[] args) {
-            if (!(sender instanceof Player)) {
-                sender.sendMessage(ChatColor.RED + "This command can only be used by players.");
-                return true;
-            }
-
-            Player player = (Player) sender;
-
-            if (args.length > 0 && args[0].equalsIgnoreCase("leaderboard")) {
-                leaderboardGUI.openLeaderboard(player);
+        public void configure(HikariConfig hikariConfig, FileConfiguration config, File dataFolder) {
+            String name = config.getString("database.h2.file", "quests");
+            hikariConfig.setDriverClassName("org.h2.Driver");
+            if (config.getBoolean("database.h2.in-memory", false)) {
+                hikariConfig.setJdbcUrl("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
             } else {
-                questGUI.openQuestList(player);
+                hikariConfig.setJdbcUrl("jdbc:h2:file:" + new File(dataFolder, name).getAbsolutePath() + ";DB_CLOSE_ON_EXIT=FALSE");
             }
-
-            return true;
+            hikariConfig.setUsername("sa");
+            hikariConfig.setPassword("");
+            hikariConfig.setMaximumPoolSize(Math.max(1, config.getInt("database.h2.pool-size", 4)));
         }
-    }
+
+        @Override
+        public String createTableSql(String table) {
+            return switch (table) {
+                case "schema_version" -> "CREATE TABLE schema_version ("
+                        + "version INT PRIMARY KEY,"
+                        + "description VARCHAR(255) NOT NULL,"
+                        + "applied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,"
+                        + "duration_ms BIGINT NOT NULL"
+                        + ")";
+                case "quests" -> "CREATE TABLE quests ("
+                        + "id INT AUTO_INCREMENT PRIMARY KEY,"
+                        + "quest_key VARCHAR(255) NOT NULL UNIQUE,"
+                        + "name VARCHAR(255) NOT NULL,"
+                        + "description CHARACTER LARGE OBJECT NOT NULL,"
+                        + "type VARCHAR(50) NOT NULL,"
+                        + "target VARCHAR(255),"
+                        + "required_amount INT NOT NULL"
+                        + ")";
+                case "player_quest_progress" -> "CREATE TABLE player_quest_progress ("
+                        + "id INT AUTO_INCREMENT PRIMARY KEY,"
+                        + "player_uuid VARCHAR(36) NOT NULL,"
+                        + "quest_id INT NOT NULL,"
+                        + "progress INT DEFAULT 0,"
+                        + "status VARCHAR(50) NOT NULL,"
+                        + "FOREIGN KEY (quest_id) REFERENCES quests(id),"
+                        + "CONSTRAINT uk_progress_player_quest UNIQUE (player_uuid, quest_id)"
+                        + ")";
+                case "player_names" -> "CREATE TABLE player_names ("
+                        + "player_uuid VARCHAR(36) PRIMARY KEY,"
+                        + "name VARCHAR(16) NOT NULL"
+                        + ")";
+                case "quest_reward_claims" -> "CREATE TABLE quest_reward_claims ("
+                        + "player_uuid VARCHAR(36) NOT NULL,"
+                        + "quest_id INT NOT NULL,"
+                        + "claimed BOOLEAN DEFAULT FALSE NOT NULL,"
+                        + "claimed_at TIMESTAMP NULL,"
+                        + "PRIMARY KEY (player_uuid, quest_id),"
+                        + "FOREIGN KEY (quest_id) REFERENCES quests(id)"
+                        + ")";
+                case "player_completed_quests" -> "CREATE TABLE player_completed_quests ("
+                        + "player_uuid VARCHAR(36) PRIMARY KEY,"
+                        + "bitmap VARBINARY NOT NULL,"
+                        + "completed_count INT DEFAULT 0 NOT NULL"
+                        + ")";
+                case "quest_prerequisites" -> "CREATE TABLE quest_prerequisites ("
+                        + "quest_id INT NOT NULL,"
+                        + "required_quest_id INT NOT NULL,"
+                        + "PRIMARY KEY (quest_id, required_quest_id),"
+                        + "FOREIGN KEY (quest_id) REFERENCES quests(id) ON DELETE CASCADE,"
+                        + "FOREIGN KEY (required_quest_id) REFERENCES quests(id) ON DELETE CASCADE"
+                        + ")";
+                default -> throw new IllegalArgumentException("Unknown table " + table);
+            };
+        }
+
+        @Override
+        public String columnDefinition(String table, String column) {
+            return switch (table + "." + column) {
+                case "quests.updated_at" -> "TIMESTAMP(3) DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3) NOT NULL";
+                case "quests.category" -> "VARCHAR(64) NULL";
+                case "quests.reset_period" -> "VARCHAR(16) NULL";
+                case "player_quest_progress.version", "player_quest_progress.reset_epoch", "quest_reward_claims.reset_epoch" -> "INT DEFAULT 0 NOT NULL";
+                default -> throw new IllegalArgumentException("Unknown column " + table + "." + column);
+            };
+        }
+
+        @Override
+        public String upsertProgressSql() {
+            return "MERGE INTO player_quest_progress t USING (VALUES (CAST(? AS VARCHAR(36)), CAST(? AS INT), CAST(? AS INT), CAST(? AS VARCHAR(50)), CAST(? AS INT), CAST(? AS INT))) " +
+                    "s (player_uuid, quest_id, progress, status, version, reset_epoch) ON t.player_uuid = s.player_uuid AND t.quest_id = s.quest_id " +
+                    "WHEN MATCHED AND MOD(s.version - t.version + 536870912, 536870912) BETWEEN 1 AND 268435455 " +
+                    "THEN UPDATE SET progress = s.progress, status = s.status, version = s.version, reset_epoch = s.reset_epoch " +
+                    "WHEN NOT MATCHED THEN INSERT (player_uuid, quest_id, progress, status, version, reset_epoch) " +
+                    "VALUES (s.player_uuid, s.quest_id, s.progress, s.status, s.version, s.reset_epoch)";
+        }
+
+        @Override
+        public String upsertPlayerNameSql() {
+            return "MERGE INTO player_names (player_uuid, name) KEY (player_uuid) VALUES (?, ?)";
+        }
+
+        @Override
+        public String insertRewardClaimSql() {
+            return "MERGE INTO quest_reward_claims t USING (VALUES (CAST(? AS VARCHAR(36)), CAST(? AS INT), CAST(? AS INT))) s (player_uuid, quest_id, reset_epoch) " +
+                    "ON t.player_uuid = s.player_uuid AND t.quest_id = s.quest_id " +
+                    "WHEN MATCHED AND t.reset_epoch <> s.reset_epoch THEN UPDATE SET claimed = FALSE, reset_epoch = s.reset_epoch " +
+                    "WHEN NOT MATCHED THEN INSERT (player_uuid, quest_id, claimed, reset_epoch) VALUES (s.player_uuid, s.quest_id, FALSE, s.reset_epoch)";
+        }
+
+        @Override
+        public String deleteExpiredProgressSql() {
+            return "DELETE FROM player_quest_progress WHERE quest_id = ? AND reset_epoch <> ? FETCH FIRST ? ROWS ONLY";
+        }
+
+        @Override
+        public String deleteExpiredClaimsSql() {
+            return "DELETE FROM quest_reward_claims WHERE quest_id = ? AND reset_epoch < ? AND claimed = TRUE FETCH FIRST ? ROWS ONLY";
+        }
+
+        @Override
+        public String insertCompletionBitmapSql() {
+            return "MERGE INTO player_completed_quests t USING (VALUES (CAST(? AS VARCHAR(36)), CAST(? AS VARBINARY))) s (player_uuid, bitmap) " +
+                    "ON t.player_uuid = s.player_uuid " +
+                    "WHEN NOT MATCHED THEN INSERT (player_uuid, bitmap, completed_count) VALUES (s.player_uuid, s.bitmap, 0)";
+        }
+
+        @Override
+        public String insertExampleQuestSql() {
+            return "MERGE INTO quests (quest_key, name, description, type, target, required_amount) KEY (quest_key) " +
+                    "VALUES ('zombie_hunter_1', 'Zombie Hunter', 'Kill 10 zombies to prove your strength.', 'KILL_MOBS', 'ZOMBIE', 10)";
+        }
+    }
+
+    public static class DatabaseExecutor {
+        public enum Priority {
+            HIGH,
+            NORMAL,
+            LOW
+        }
+
+        private final QuestSystem plugin;
+        private final ThreadPoolExecutor executor;
+        private final Semaphore capacity;
+        private final AtomicLong sequence = new AtomicLong();
+        private final LongAdder rejected = new LongAdder();
+        private final long submitTimeoutMillis;
+
+        public DatabaseExecutor(QuestSystem plugin, int poolSize) {
+            this.plugin = plugin;
+            FileConfiguration config = plugin.getConfig();
+            this.capacity = new Semaphore(Math.max(1, config.getInt("database.executor.queue-capacity", 1000)));
+            this.submitTimeoutMillis = config.getLong("database.executor.submit-timeout-millis", 5000L);
+
+            ThreadFactory threadFactory;
+            if (config.getBoolean("database.executor.virtual-threads", false)) {
+                threadFactory = Thread.ofVirtual().name("QuestSystem-DB-", 1).factory();
+            } else {
+                AtomicInteger threadNumber = new AtomicInteger(1);
+                threadFactory = runnable -> {
+                    Thread thread = new Thread(runnable, "QuestSystem-DB-" + threadNumber.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                };
+            }
+            this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                    new PriorityBlockingQueue<>(), threadFactory);
+        }
+
+        public CompletableFuture<Void> run(Priority priority, Runnable task) {
+            return supply(priority, () -> {
+                task.run();
+                return null;
+            });
+        }
+
+        public <T> CompletableFuture<T> supply(Priority priority, Supplier<T> task) {
+            CompletableFuture<T> future = new CompletableFuture<>();
+            if (!acquire()) {
+                rejected.increment();
+                future.completeExceptionally(new RejectedExecutionException("Database queue is full."));
+                return future;
+            }
+            execute(priority, task, future, true);
+            return future;
+        }
+
+        /**
+         * Queues a write that must not be dropped under backpressure. It bypasses the queue capacity and is
+         * only rejected once the executor has shut down.
+         */
+        public CompletableFuture<Void> persist(Priority priority, Runnable task) {
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            execute(priority, () -> {
+                task.run();
+                return null;
+            }, future, false);
+            return future;
+        }
+
+        private <T> void execute(Priority priority, Supplier<T> task, CompletableFuture<T> future, boolean bounded) {
+            try {
+                executor.execute(new PrioritizedTask(priority, sequence.getAndIncrement(), () -> {
+                    try {
+                        future.complete(task.get());
+                    } catch (Throwable t) {
+                        future.completeExceptionally(t);
+                    } finally {
+                        if (bounded) {
+                            capacity.release();
+                        }
+                    }
+                }));
+            } catch (RejectedExecutionException e) {
+                if (bounded) {
+                    capacity.release();
+                }
+                rejected.increment();
+                future.completeExceptionally(e);
+            }
+        }
+
+        private boolean acquire() {
+            if (Bukkit.isPrimaryThread()) {
+                return capacity.tryAcquire();
+            }
+            try {
+                return capacity.tryAcquire(submitTimeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        public int getQueuedTasks() {
+            return executor.getQueue().size();
+        }
+
+        public int getActiveTasks() {
+            return executor.getActiveCount();
+        }
+
+        public long getRejectedTasks() {
+            return rejected.sum();
+        }
+
+        public void shutdown() {
+            executor.shutdown();
+            try {
+                if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                    plugin.getLogger().warning("Database tasks did not finish in time; interrupting " + executor.getActiveCount() + " of them.");
+                    executor.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private static final class PrioritizedTask implements Runnable, Comparable<PrioritizedTask> {
+            private final Priority priority;
+            private final long sequence;
+            private final Runnable task;
+
+            private PrioritizedTask(Priority priority, long sequence, Runnable task) {
+                this.priority = priority;
+                this.sequence = sequence;
+                this.task = task;
+            }
+
+            @Override
+            public void run() {
+                task.run();
+            }
+
+            @Override
+            public int compareTo(PrioritizedTask other) {
+                int byPriority = priority.compareTo(other.priority);
+                return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+            }
+        }
+    }
+
+    public interface QuestMetricsMXBean {
+        int getActiveSessions();
+
+        int getRegistrySize();
+
+        long getRegistryVersion();
+
+        int getGuiTemplates();
+
+        int getPendingWrites();
+
+        int getQueuedDatabaseTasks();
+
+        int getActiveDatabaseTasks();
+
+        long getRejectedDatabaseTasks();
+
+        int getActiveConnections();
+
+        int getIdleConnections();
+
+        int getTotalConnections();
+
+        int getThreadsAwaitingConnection();
+
+        MetricSnapshot getConnectionWait();
+
+        List<MetricSnapshot> getHandlerTimings();
+
+        List<MetricSnapshot> getQueryTimings();
+
+        void resetStatistics();
+    }
+
+    public static class MetricSnapshot {
+        private final String name;
+        private final long count;
+        private final long rows;
+        private final double meanMicros;
+        private final double p50Micros;
+        private final double p99Micros;
+        private final double maxMicros;
+
+        @ConstructorParameters({"name", "count", "rows", "meanMicros", "p50Micros", "p99Micros", "maxMicros"})
+        public MetricSnapshot(String name, long count, long rows, double meanMicros, double p50Micros, double p99Micros, double maxMicros) {
+            this.name = name;
+            this.count = count;
+            this.rows = rows;
+            this.meanMicros = meanMicros;
+            this.p50Micros = p50Micros;
+            this.p99Micros = p99Micros;
+            this.maxMicros = maxMicros;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public double getMeanMicros() {
+            return meanMicros;
+        }
+
+        public double getP50Micros() {
+            return p50Micros;
+        }
+
+        public double getP99Micros() {
+            return p99Micros;
+        }
+
+        public double getMaxMicros() {
+            return maxMicros;
+        }
+    }
+
+    public static class QuestMetrics implements QuestMetricsMXBean {
+        public enum Handler {
+            PRE_LOGIN,
+            JOIN,
+            QUIT,
+            MOVE,
+            TELEPORT,
+            CHANGE_WORLD,
+            PICKUP,
+            DROP,
+            CRAFT,
+            INVENTORY_CLICK,
+            INVENTORY_DRAG,
+            ENTITY_DEATH
+        }
+
+        public enum Query {
+            SETUP_TABLES,
+            LOAD_QUESTS,
+            POLL_QUESTS,
+            LOAD_PROGRESS,
+            FLUSH_PROGRESS,
+            SAVE_NAME,
+            LEADERBOARD,
+            REWARD_CLAIMS,
+            COMPACT_PROGRESS
+        }
+
+        private static final String OBJECT_NAME = "me.pvpclub.questSystem:type=QuestMetrics";
+        private static final EventType HANDLER_EVENT = EventType.getEventType(HandlerEvent.class);
+        private static final EventType QUERY_EVENT = EventType.getEventType(QueryEvent.class);
+
+        private final QuestSystem plugin;
+        private final boolean enabled;
+        private final boolean timers;
+        private final boolean jmx;
+        private final int moveSampleRate;
+        private int moveCalls;
+        private final LatencyHistogram[] handlers = new LatencyHistogram[Handler.values().length];
+        private final LatencyHistogram[] queries = new LatencyHistogram[Query.values().length];
+        private final LatencyHistogram connectionWait = new LatencyHistogram();
+        private ObjectName registeredName;
+
+        public QuestMetrics(QuestSystem plugin) {
+            this.plugin = plugin;
+            this.enabled = plugin.getConfig().getBoolean("metrics.enabled", true);
+            this.timers = enabled && plugin.getConfig().getBoolean("metrics.timers", false);
+            this.jmx = plugin.getConfig().getBoolean("metrics.jmx", true);
+            int sampleRate = Math.max(1, plugin.getConfig().getInt("metrics.move-sample-rate", 64));
+            this.moveSampleRate = Integer.highestOneBit(sampleRate) == sampleRate ? sampleRate : Integer.highestOneBit(sampleRate) << 1;
+            for (int i = 0; i < handlers.length; i++) {
+                handlers[i] = new LatencyHistogram();
+            }
+            for (int i = 0; i < queries.length; i++) {
+                queries[i] = new LatencyHistogram();
+            }
+        }
+
+        public void start() {
+            if (!enabled || !jmx || registeredName != null) return;
+            try {
+                MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+                ObjectName name = new ObjectName(OBJECT_NAME);
+                if (server.isRegistered(name)) {
+                    server.unregisterMBean(name);
+                }
+                server.registerMBean(this, name);
+                registeredName = name;
+            } catch (JMException e) {
+                plugin.getLogger().warning("Could not register the QuestSystem metrics MBean: " + e.getMessage());
+            }
+        }
+
+        public void stop() {
+            if (registeredName == null) return;
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(registeredName);
+            } catch (JMException e) {
+                plugin.getLogger().warning("Could not unregister the QuestSystem metrics MBean: " + e.getMessage());
+            }
+            registeredName = null;
+        }
+
+        public long startTimer() {
+            return timers || enabled && QUERY_EVENT.isEnabled() ? System.nanoTime() : 0L;
+        }
+
+        public long startTimer(Handler handler) {
+            if (!timers && !(enabled && HANDLER_EVENT.isEnabled())) return 0L;
+            // Move events fire for every player every tick, so only every moveSampleRate-th one is timed.
+            if (handler == Handler.MOVE && (++moveCalls & (moveSampleRate - 1)) != 0) return 0L;
+            return System.nanoTime();
+        }
+
+        public void recordHandler(Handler handler, long started) {
+            if (started == 0L) return;
+            long elapsed = System.nanoTime() - started;
+            if (timers) {
+                handlers[handler.ordinal()].record(elapsed, 1, handler == Handler.MOVE ? moveSampleRate : 1);
+            }
+            if (HANDLER_EVENT.isEnabled()) {
+                HandlerEvent event = new HandlerEvent();
+                event.handler = handler.name();
+                event.duration = elapsed;
+                event.commit();
+            }
+        }
+
+        public void recordQuery(Query query, long started, int rows) {
+            if (started == 0L) return;
+            long elapsed = System.nanoTime() - started;
+            if (timers) {
+                queries[query.ordinal()].record(elapsed, rows, 1);
+            }
+            if (QUERY_EVENT.isEnabled()) {
+                QueryEvent event = new QueryEvent();
+                event.query = query.name();
+                event.rows = rows;
+                event.duration = elapsed;
+                event.commit();
+            }
+        }
+
+        public void recordConnectionWait(long elapsed) {
+            if (!enabled) return;
+            connectionWait.record(elapsed, 1, 1);
+        }
+
+        @Override
+        public int getActiveSessions() {
+            QuestManager questManager = plugin.getQuestManager();
+            return questManager == null ? 0 : questManager.getSessionCount();
+        }
+
+        @Override
+        public int getRegistrySize() {
+            QuestManager questManager = plugin.getQuestManager();
+            return questManager == null ? 0 : questManager.getRegistry().size();
+        }
+
+        @Override
+        public long getRegistryVersion() {
+            QuestManager questManager = plugin.getQuestManager();
+            return questManager == null ? 0L : questManager.getRegistryVersion();
+        }
+
+        @Override
+        public int getGuiTemplates() {
+            QuestGUI questGUI = plugin.getQuestGUI();
+            return questGUI == null ? 0 : questGUI.getTemplateCount();
+        }
+
+        @Override
+        public int getPendingWrites() {
+            ProgressWriteBehind writeBehind = plugin.getProgressWriteBehind();
+            return writeBehind == null ? 0 : writeBehind.getPendingWrites();
+        }
+
+        @Override
+        public int getQueuedDatabaseTasks() {
+            DatabaseExecutor executor = plugin.getDatabaseExecutor();
+            return executor == null ? 0 : executor.getQueuedTasks();
+        }
+
+        @Override
+        public int getActiveDatabaseTasks() {
+            DatabaseExecutor executor = plugin.getDatabaseExecutor();
+            return executor == null ? 0 : executor.getActiveTasks();
+        }
+
+        @Override
+        public long getRejectedDatabaseTasks() {
+            DatabaseExecutor executor = plugin.getDatabaseExecutor();
+            return executor == null ? 0L : executor.getRejectedTasks();
+        }
+
+        @Override
+        public int getActiveConnections() {
+            HikariPoolMXBean pool = pool();
+            return pool == null ? 0 : pool.getActiveConnections();
+        }
+
+        @Override
+        public int getIdleConnections() {
+            HikariPoolMXBean pool = pool();
+            return pool == null ? 0 : pool.getIdleConnections();
+        }
+
+        @Override
+        public int getTotalConnections() {
+            HikariPoolMXBean pool = pool();
+            return pool == null ? 0 : pool.getTotalConnections();
+        }
+
+        @Override
+        public int getThreadsAwaitingConnection() {
+            HikariPoolMXBean pool = pool();
+            return pool == null ? 0 : pool.getThreadsAwaitingConnection();
+        }
+
+        @Override
+        public MetricSnapshot getConnectionWait() {
+            return connectionWait.snapshot("CONNECTION_WAIT");
+        }
+
+        @Override
+        public List<MetricSnapshot> getHandlerTimings() {
+            List<MetricSnapshot> timings = new ArrayList<>();
+            for (Handler handler : Handler.values()) {
+                timings.add(handlers[handler.ordinal()].snapshot(handler.name()));
+            }
+            return timings;
+        }
+
+        @Override
+        public List<MetricSnapshot> getQueryTimings() {
+            List<MetricSnapshot> timings = new ArrayList<>();
+            for (Query query : Query.values()) {
+                timings.add(queries[query.ordinal()].snapshot(query.name()));
+            }
+            return timings;
+        }
+
+        @Override
+        public void resetStatistics() {
+            for (LatencyHistogram histogram : handlers) {
+                histogram.reset();
+            }
+            for (LatencyHistogram histogram : queries) {
+                histogram.reset();
+            }
+            connectionWait.reset();
+        }
+
+        public List<String> describe() {
+            List<String> lines = new ArrayList<>();
+            lines.add(ChatColor.GOLD + "QuestSystem stats" + (timers ? "" : ChatColor.GRAY + " (timers disabled)"));
+            lines.add(String.format(ChatColor.WHITE + "Sessions: " + ChatColor.YELLOW + "%d" + ChatColor.WHITE + "  Registry: " + ChatColor.YELLOW + "v%d, %d quests"
+                            + ChatColor.WHITE + "  GUI templates: " + ChatColor.YELLOW + "%d",
+                    getActiveSessions(), getRegistryVersion(), getRegistrySize(), getGuiTemplates()));
+            lines.add(String.format(ChatColor.WHITE + "Pending writes: " + ChatColor.YELLOW + "%d" + ChatColor.WHITE + "  DB tasks: " + ChatColor.YELLOW
+                            + "%d queued, %d running, %d rejected",
+                    getPendingWrites(), getQueuedDatabaseTasks(), getActiveDatabaseTasks(), getRejectedDatabaseTasks()));
+            MetricSnapshot wait = getConnectionWait();
+            lines.add(String.format(ChatColor.WHITE + "Pool: " + ChatColor.YELLOW + "%d active, %d idle, %d total, %d waiting"
+                            + ChatColor.GRAY + " (acquire p50 %.0f / p99 %.0f µs)",
+                    getActiveConnections(), getIdleConnections(), getTotalConnections(), getThreadsAwaitingConnection(),
+                    wait.getP50Micros(), wait.getP99Micros()));
+            appendTimings(lines, "Handlers", getHandlerTimings());
+            appendTimings(lines, "Queries", getQueryTimings());
+            return lines;
+        }
+
+        private static void appendTimings(List<String> lines, String title, List<MetricSnapshot> timings) {
+            lines.add(ChatColor.GOLD + title + ChatColor.GRAY + " (count, mean / p50 / p99 / max µs)");
+            for (MetricSnapshot timing : timings) {
+                if (timing.getCount() == 0) continue;
+                lines.add(String.format(ChatColor.WHITE + "  %s: " + ChatColor.YELLOW + "%d" + ChatColor.GRAY + ", %.1f / %.0f / %.0f / %.1f",
+                        timing.getName(), timing.getCount(), timing.getMeanMicros(), timing.getP50Micros(), timing.getP99Micros(), timing.getMaxMicros()));
+            }
+        }
+
+        private HikariPoolMXBean pool() {
+            DatabaseManager databaseManager = plugin.getDatabaseManager();
+            return databaseManager == null ? null : databaseManager.getPoolStats();
+        }
+
+        private static final class LatencyHistogram {
+            private static final int BUCKETS = 48;
+
+            private final LongAdder[] buckets = new LongAdder[BUCKETS];
+            private final LongAdder count = new LongAdder();
+            private final LongAdder rows = new LongAdder();
+            private final LongAdder totalNanos = new LongAdder();
+            private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0L);
+
+            private LatencyHistogram() {
+                for (int i = 0; i < BUCKETS; i++) {
+                    buckets[i] = new LongAdder();
+                }
+            }
+
+            private void record(long nanos, int rowCount, int weight) {
+                long value = Math.max(0L, nanos);
+                buckets[Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(value))].add(weight);
+                count.add(weight);
+                rows.add((long) rowCount * weight);
+                totalNanos.add(value * weight);
+                maxNanos.accumulate(value);
+            }
+
+            private void reset() {
+                for (LongAdder bucket : buckets) {
+                    bucket.reset();
+                }
+                count.reset();
+                rows.reset();
+                totalNanos.reset();
+                maxNanos.reset();
+            }
+
+            private MetricSnapshot snapshot(String name) {
+                long[] counts = new long[BUCKETS];
+                long total = 0L;
+                for (int i = 0; i < BUCKETS; i++) {
+                    counts[i] = buckets[i].sum();
+                    total += counts[i];
+                }
+                double mean = total == 0 ? 0D : totalNanos.sum() / (double) total / 1000D;
+                return new MetricSnapshot(name, total, rows.sum(), mean,
+                        percentile(counts, total, 0.50D), percentile(counts, total, 0.99D), maxNanos.get() / 1000D);
+            }
+
+            private static double percentile(long[] counts, long total, double fraction) {
+                if (total == 0) return 0D;
+                long rank = (long) Math.ceil(total * fraction);
+                long seen = 0L;
+                for (int i = 0; i < counts.length; i++) {
+                    seen += counts[i];
+                    if (seen >= rank) {
+                        return i == 0 ? 0D : (1L << i) / 1000D;
+                    }
+                }
+                return (1L << (counts.length - 1)) / 1000D;
+            }
+        }
+
+        @Name("questsystem.Handler")
+        @Label("Quest Event Handler")
+        @Description("Time spent in a QuestSystem event handler.")
+        @Category("QuestSystem")
+        @StackTrace(false)
+        @Enabled(false)
+        static final class HandlerEvent extends Event {
+            @Label("Handler")
+            String handler;
+
+            @Label("Duration")
+            @Timespan(Timespan.NANOSECONDS)
+            long duration;
+        }
+
+        @Name("questsystem.Query")
+        @Label("Quest Database Query")
+        @Description("A QuestSystem database operation and the rows it touched.")
+        @Category("QuestSystem")
+        @StackTrace(false)
+        static final class QueryEvent extends Event {
+            @Label("Query")
+            String query;
+
+            @Label("Rows")
+            int rows;
+
+            @Label("Duration")
+            @Timespan(Timespan.NANOSECONDS)
+            long duration;
+        }
+    }
+
+    public static class QuestManager {
+        private final QuestSystem plugin;
+        private final Map<Integer, Integer> questIndices = new ConcurrentHashMap<>();
+        private final Map<UUID, PlayerSession> sessions = new ConcurrentHashMap<>();
+        private final Object reloadLock = new Object();
+        private volatile QuestRegistry registry = QuestRegistry.EMPTY;
+        private final ResetClock resetClock;
+        private final long sessionLingerTicks;
+        private final long loadRetryTicks;
+        private final long pollTicks;
+        private BukkitTask pollTask;
+
+        public QuestManager(QuestSystem plugin) {
+            this.plugin = plugin;
+            FileConfiguration config = plugin.getConfig();
+            this.sessionLingerTicks = Math.max(0L, config.getLong("sessions.linger-seconds", 30L) * 20L);
+            this.loadRetryTicks = Math.max(1L, config.getLong("sessions.load-retry-seconds", 5L) * 20L);
+            this.pollTicks = Math.max(0L, config.getLong("quests.poll-interval-seconds", 30L) * 20L);
+            this.resetClock = ResetClock.fromConfig(plugin);
+        }
+
+        public CompletableFuture<Boolean> loadQuestsFromDatabase() {
+            CompletableFuture<Boolean> loaded = reloadQuests(true);
+            if (pollTicks > 0 && pollTask == null) {
+                pollTask = Bukkit.getScheduler().runTaskTimer(plugin, this::pollForChanges, pollTicks, pollTicks);
+            }
+            return loaded;
+        }
+
+        public void stopPolling() {
+            if (pollTask != null) {
+                pollTask.cancel();
+                pollTask = null;
+            }
+        }
+
+        public CompletableFuture<Boolean> reloadQuests(boolean full) {
+            return plugin.getDatabaseExecutor().supply(DatabaseExecutor.Priority.HIGH, () -> {
+                try {
+                    return reload(full);
+                } catch (SQLException e) {
+                    plugin.getLogger().severe("Could not load quests from database.");
+                    e.printStackTrace();
+                    throw new CompletionException(e);
+                }
+            });
+        }
+
+        private void pollForChanges() {
+            QuestRegistry current = registry;
+            plugin.getDatabaseExecutor().run(DatabaseExecutor.Priority.LOW, () -> {
+                long started = plugin.getMetrics().startTimer();
+                try (Connection conn = plugin.getDatabaseManager().getConnection();
+                     PreparedStatement ps = conn.prepareStatement(
+                             "SELECT COUNT(*), MAX(updated_at), (SELECT COUNT(*) FROM quest_prerequisites) FROM quests");
+                     ResultSet rs = ps.executeQuery()) {
+                    if (!rs.next()) return;
+                    Timestamp lastModified = rs.getTimestamp(2);
+                    long watermark = lastModified == null ? 0L : lastModified.getTime();
+                    plugin.getMetrics().recordQuery(QuestMetrics.Query.POLL_QUESTS, started, 1);
+                    if (rs.getInt(1) != current.size() || watermark != current.getWatermark()
+                            || rs.getInt(3) != current.getGraph().getEdgeCount()) {
+                        reload(false);
+                    }
+                } catch (SQLException e) {
+                    plugin.getLogger().warning("Could not poll quests for changes: " + e.getMessage());
+                }
+            }).exceptionally(error -> {
+                plugin.getLogger().warning("Skipped a quest change poll: " + error.getMessage());
+                return null;
+            });
+        }
+
+        private boolean reload(boolean full) throws SQLException {
+            synchronized (reloadLock) {
+                long started = System.nanoTime();
+                QuestRegistry current = registry;
+                boolean incremental = !full && current != QuestRegistry.EMPTY;
+                Map<Integer, Quest> quests = new HashMap<>();
+                Map<Integer, Long> revisions = new HashMap<>();
+                Set<Long> prerequisites = new HashSet<>();
+                int changed = 0;
+
+                long queryStarted = plugin.getMetrics().startTimer();
+                try (Connection conn = plugin.getDatabaseManager().getConnection()) {
+                    if (incremental) {
+                        Set<Integer> ids = new HashSet<>();
+                        try (PreparedStatement ps = conn.prepareStatement("SELECT id FROM quests");
+                             ResultSet rs = ps.executeQuery()) {
+                            while (rs.next()) {
+                                ids.add(rs.getInt(1));
+                            }
+                        }
+                        for (Quest quest : current.getQuests()) {
+                            if (ids.contains(quest.getId())) {
+                                quests.put(quest.getId(), quest);
+                                revisions.put(quest.getId(), current.getRevision(quest.getId()));
+                            } else {
+                                changed++;
+                            }
+                        }
+                    }
+
+                    try (PreparedStatement ps = conn.prepareStatement("SELECT quest_id, required_quest_id FROM quest_prerequisites");
+                         ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            prerequisites.add(QuestGraph.edge(rs.getInt(1), rs.getInt(2)));
+                        }
+                    }
+
+                    String sql = incremental ? "SELECT * FROM quests WHERE updated_at >= ?" : "SELECT * FROM quests";
+                    try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                        if (incremental) {
+                            ps.setTimestamp(1, new Timestamp(current.getWatermark()));
+                        }
+                        try (ResultSet rs = ps.executeQuery()) {
+                            while (rs.next()) {
+                                int id = rs.getInt("id");
+                                Timestamp updatedAt = rs.getTimestamp("updated_at");
+                                long revision = updatedAt == null ? 0L : updatedAt.getTime();
+                                if (incremental && quests.containsKey(id) && revisions.get(id) == revision) continue;
+
+                                Quest quest = new Quest(
+                                        id,
+                                        indexOf(id),
+                                        rs.getString("quest_key"),
+                                        rs.getString("name"),
+                                        Arrays.asList(rs.getString("description").split("\n")),
+                                        QuestType.valueOf(rs.getString("type")),
+                                        rs.getString("target"),
+                                        rs.getInt("required_amount"),
+                                        rs.getString("category"),
+                                        ResetPeriod.parse(rs.getString("reset_period"))
+                                );
+                                if (quest.getType() == QuestType.REACH_LOCATION && quest.getRegion() == null) {
+                                    plugin.getLogger().warning("Quest " + id + " has an invalid location target: " + quest.getTarget());
+                                }
+                                quests.put(id, quest);
+                                revisions.put(id, revision);
+                                changed++;
+                            }
+                        }
+                    }
+                }
+                plugin.getMetrics().recordQuery(QuestMetrics.Query.LOAD_QUESTS, queryStarted, changed);
+
+                if (incremental && changed == 0 && prerequisites.equals(current.getGraph().getEdges())) return false;
+
+                QuestRegistry next = new QuestRegistry(current.getVersion() + 1, quests, revisions, questIndices.size(), prerequisites);
+                for (String problem : next.getGraph().getProblems()) {
+                    plugin.getLogger().warning(problem);
+                }
+                if (plugin.getQuestGUI() != null) {
+                    plugin.getQuestGUI().prepareTemplates(next);
+                }
+                Map<PlayerSession, ObjectiveIndex[]> rebuilt = new HashMap<>();
+                for (PlayerSession session : sessions.values()) {
+                    rebuilt.put(session, new ObjectiveIndex[]{session.getObjectives(), buildPlayerObjectives(next, session.getProgress())});
+                }
+
+                registry = next;
+                Bukkit.getScheduler().runTask(plugin, () -> rebuilt.forEach((session, objectives) -> {
+                    if (session.getObjectives() == objectives[0]) {
+                        session.setObjectives(objectives[1]);
+                    } else {
+                        session.setObjectives(buildPlayerObjectives(session.getProgress()));
+                    }
+                }));
+                plugin.getLogger().info(String.format("Loaded quest registry v%d: %d quests, %d changed (%s, %.1f ms).",
+                        next.getVersion(), next.size(), changed, incremental ? "incremental" : "full",
+                        (System.nanoTime() - started) / 1_000_000.0));
+                return true;
+            }
+        }
+
+        private int indexOf(int questId) {
+            synchronized (questIndices) {
+                return questIndices.computeIfAbsent(questId, id -> questIndices.size());
+            }
+        }
+
+        public CompletableFuture<Void> prefetchPlayerProgress(UUID playerUUID) {
+            PlayerSession session = openSession(playerUUID);
+            Bukkit.getScheduler().runTaskLater(plugin, () -> closeIfOrphaned(session), sessionLingerTicks + loadRetryTicks);
+            return session.whenLoaded();
+        }
+
+        private void closeIfOrphaned(PlayerSession session) {
+            UUID playerUUID = session.getPlayerUUID();
+            if (sessions.get(playerUUID) != session || Bukkit.getPlayer(playerUUID) != null || session.isSaveRequested()) return;
+            closeSession(session);
+        }
+
+        public void loadPlayerProgress(Player player) {
+            openSession(player.getUniqueId());
+        }
+
+        private PlayerSession openSession(UUID playerUUID) {
+            PlayerSession[] created = new PlayerSession[1];
+            PlayerSession session = sessions.compute(playerUUID, (uuid, existing) -> {
+                if (existing != null) {
+                    existing.resume();
+                    return existing;
+                }
+                created[0] = new PlayerSession(uuid);
+                return created[0];
+            });
+            if (created[0] != null) {
+                loadSession(created[0]);
+            }
+            return session;
+        }
+
+        private void loadSession(PlayerSession session) {
+            UUID playerUUID = session.getPlayerUUID();
+            plugin.getDatabaseExecutor().supply(DatabaseExecutor.Priority.HIGH, () -> readPlayerProgress(playerUUID))
+                    .whenComplete((progressStore, error) -> {
+                        if (error != null) {
+                            plugin.getLogger().severe("Could not load quest progress for " + playerUUID + "; retrying.");
+                            error.printStackTrace();
+                            Bukkit.getScheduler().runTaskLater(plugin, () -> {
+                                if (sessions.get(playerUUID) != session) return;
+                                if (session.isSaveRequested()) {
+                                    sessions.remove(playerUUID, session);
+                                } else {
+                                    loadSession(session);
+                                }
+                            }, loadRetryTicks);
+                            return;
+                        }
+                        if (session.activate(progressStore, buildPlayerObjectives(progressStore), UnlockSet.build(registry.getGraph(), progressStore))) {
+                            Bukkit.getScheduler().runTask(plugin, session::replayDeferred);
+                        }
+                    });
+        }
+
+        private PlayerProgressStore readPlayerProgress(UUID playerUUID) {
+            PlayerProgressStore progressStore = new PlayerProgressStore(registry.capacity());
+            QuestRegistry questRegistry = registry;
+            String sql = "SELECT quest_id, progress, status, version, reset_epoch FROM player_quest_progress WHERE player_uuid = ?";
+            long started = plugin.getMetrics().startTimer();
+            int rows = 0;
+            boolean foldable = false;
+            try (Connection conn = plugin.getDatabaseManager().getConnection()) {
+                try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                    ps.setString(1, playerUUID.toString());
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            int questId = rs.getInt("quest_id");
+                            QuestStatus status = QuestStatus.valueOf(rs.getString("status"));
+                            progressStore.load(indexOf(questId), rs.getInt("progress"), status, rs.getInt("version"), rs.getInt("reset_epoch"));
+                            Quest quest = questRegistry.getById(questId);
+                            foldable |= status == QuestStatus.COMPLETED && quest != null && !quest.isRepeatable();
+                            rows++;
+                        }
+                    }
+                }
+                try (PreparedStatement ps = conn.prepareStatement("SELECT bitmap FROM player_completed_quests WHERE player_uuid = ?")) {
+                    ps.setString(1, playerUUID.toString());
+                    try (ResultSet rs = ps.executeQuery()) {
+                        if (rs.next()) {
+                            BitSet completed = CompletionBitmap.decode(rs.getBytes(1));
+                            for (int questId = completed.nextSetBit(0); questId >= 0; questId = completed.nextSetBit(questId + 1)) {
+                                Quest quest = questRegistry.getById(questId);
+                                progressStore.load(indexOf(questId), quest == null ? 0 : quest.getRequiredAmount(), QuestStatus.COMPLETED, 0, 0);
+                            }
+                            rows++;
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            } finally {
+                plugin.getMetrics().recordQuery(QuestMetrics.Query.LOAD_PROGRESS, started, rows);
+            }
+            if (foldable) {
+                plugin.getDatabaseExecutor().run(DatabaseExecutor.Priority.LOW, () -> {
+                    try (Connection conn = plugin.getDatabaseManager().getConnection()) {
+                        conn.setAutoCommit(false);
+                        try {
+                            plugin.getDatabaseManager().foldCompletedRows(conn, playerUUID);
+                            conn.commit();
+                        } catch (SQLException e) {
+                            conn.rollback();
+                            throw e;
+                        }
+                    } catch (SQLException e) {
+                        plugin.getLogger().warning("Could not fold the completed quests of " + playerUUID + ": " + e.getMessage());
+                    }
+                });
+            }
+            resetExpired(null, questRegistry, progressStore);
+            return progressStore;
+        }
+
+        public int getResetEpoch(Quest quest) {
+            return resetClock.epoch(quest.getResetPeriod());
+        }
+
+        private void applyResets(Player player, PlayerSession session) {
+            QuestRegistry questRegistry = registry;
+            int day = resetClock.epoch(ResetPeriod.DAILY);
+            if (session.isResetApplied(questRegistry.getVersion(), day) || session.getState() == PlayerSession.State.LOADING) return;
+            session.markResetApplied(questRegistry.getVersion(), day);
+            if (resetExpired(player, questRegistry, session.getProgress())) {
+                session.setObjectives(buildPlayerObjectives(questRegistry, session.getProgress()));
+                session.setUnlocks(UnlockSet.build(questRegistry.getGraph(), session.getProgress()));
+                for (Quest repeatable : questRegistry.getRepeatables()) {
+                    for (int dependent : questRegistry.getGraph().getDependents(repeatable.getIndex())) {
+                        Quest quest = questRegistry.getByIndex(dependent);
+                        if (quest != null) plugin.getQuestGUI().refreshQuest(player, quest.getId());
+                    }
+                }
+            }
+        }
+
+        private UnlockSet unlocksFor(PlayerSession session, QuestRegistry questRegistry) {
+            UnlockSet unlocks = session.getUnlocks();
+            if (unlocks.getGraph() != questRegistry.getGraph()) {
+                unlocks = UnlockSet.build(questRegistry.getGraph(), session.getProgress());
+                session.setUnlocks(unlocks);
+            }
+            return unlocks;
+        }
+
+        private boolean resetExpired(Player player, QuestRegistry questRegistry, PlayerProgressStore progressStore) {
+            boolean changed = false;
+            for (Quest quest : questRegistry.getRepeatables()) {
+                int index = quest.getIndex();
+                int epoch = resetClock.epoch(quest.getResetPeriod());
+                if (progressStore.getEpoch(index) == epoch) continue;
+
+                long current;
+                long entry;
+                do {
+                    current = progressStore.get(index);
+                    if (PlayerProgressStore.status(current) == QuestStatus.AVAILABLE && PlayerProgressStore.progress(current) == 0) {
+                        entry = current;
+                        break;
+                    }
+                    entry = progressStore.compareAndSet(index, current, 0, QuestStatus.AVAILABLE);
+                } while (entry == PlayerProgressStore.CONFLICT);
+                progressStore.setEpoch(index, epoch);
+
+                if (entry != current || PlayerProgressStore.status(current) == QuestStatus.IN_PROGRESS) {
+                    changed = true;
+                }
+                if (player != null && entry != current) {
+                    plugin.getQuestGUI().refreshQuest(player, quest.getId());
+                }
+            }
+            return changed;
+        }
+
+        public CompletableFuture<Void> unloadPlayerProgress(Player player) {
+            PlayerSession session = sessions.get(player.getUniqueId());
+            return session == null ? CompletableFuture.completedFuture(null) : closeSession(session);
+        }
+
+        private CompletableFuture<Void> closeSession(PlayerSession session) {
+            UUID playerUUID = session.getPlayerUUID();
+            session.beginSaving();
+            CompletableFuture<Void> flushed = session.whenLoaded()
+                    .thenCompose(ignored -> plugin.getProgressWriteBehind().flushPlayer(playerUUID));
+            flushed.whenComplete((ignored, error) -> {
+                if (error != null) {
+                    plugin.getLogger().warning("Could not save the quest progress of " + playerUUID + "; keeping the session and retrying: " + error.getMessage());
+                    Bukkit.getScheduler().runTaskLater(plugin, () -> {
+                        if (sessions.get(playerUUID) == session && session.getState() == PlayerSession.State.SAVING) {
+                            closeSession(session);
+                        }
+                    }, loadRetryTicks);
+                    return;
+                }
+                Bukkit.getScheduler().runTaskLater(plugin, () -> {
+                    if (session.getState() == PlayerSession.State.SAVING) {
+                        sessions.remove(playerUUID, session);
+                    }
+                }, sessionLingerTicks);
+            });
+            return flushed;
+        }
+
+        private ObjectiveIndex buildPlayerObjectives(PlayerProgressStore progressStore) {
+            return buildPlayerObjectives(registry, progressStore);
+        }
+
+        private ObjectiveIndex buildPlayerObjectives(QuestRegistry questRegistry, PlayerProgressStore progressStore) {
+            List<Quest> inProgress = new ArrayList<>();
+            int limit = Math.min(questRegistry.capacity(), progressStore.capacity());
+            for (int index = 0; index < limit; index++) {
+                Quest quest = questRegistry.getByIndex(index);
+                if (quest != null && progressStore.getStatus(index) == QuestStatus.IN_PROGRESS) {
+                    inProgress.add(quest);
+                }
+            }
+            return ObjectiveIndex.of(inProgress);
+        }
+
+        public boolean hasObjectives(QuestType type, int targetId) {
+            return registry.getObjectives().contains(type, targetId);
+        }
+
+        public boolean hasObjectives(UUID playerUUID, QuestType type) {
+            PlayerSession session = sessions.get(playerUUID);
+            return session != null && session.getObjectives().hasType(type);
+        }
+
+        public PlayerProgressStore getProgressStore(UUID playerUUID) {
+            PlayerSession session = sessions.get(playerUUID);
+            return session == null ? null : session.getProgress();
+        }
+
+        public QuestRegistry getRegistry() {
+            return registry;
+        }
+
+        public int getSessionCount() {
+            return sessions.size();
+        }
+
+        public long getRegistryVersion() {
+            return registry.getVersion();
+        }
+
+        public Collection<Quest> getAllQuests() {
+            return registry.getQuests();
+        }
+
+        public Quest getQuestById(int id) {
+            return registry.getById(id);
+        }
+
+        public PlayerQuestData getPlayerQuestData(Player player, int questId) {
+            Quest quest = registry.getById(questId);
+            if (quest == null) {
+                return new PlayerQuestData(player.getUniqueId(), questId, 0, QuestStatus.AVAILABLE);
+            }
+            PlayerSession session = sessions.get(player.getUniqueId());
+            if (session == null) {
+                return new PlayerQuestData(player.getUniqueId(), questId, 0, QuestStatus.AVAILABLE);
+            }
+            applyResets(player, session);
+            return PlayerQuestData.of(player.getUniqueId(), questId, session.getProgress().get(quest.getIndex()), getResetEpoch(quest));
+        }
+
+        public QuestStatus getQuestStatus(Player player, Quest quest) {
+            PlayerSession session = sessions.get(player.getUniqueId());
+            QuestRegistry questRegistry = registry;
+            if (session == null) {
+                return questRegistry.getGraph().getPrerequisites(quest.getIndex()).length == 0 ? QuestStatus.AVAILABLE : QuestStatus.LOCKED;
+            }
+            applyResets(player, session);
+            QuestStatus status = session.getProgress().getStatus(quest.getIndex());
+            if (status == QuestStatus.AVAILABLE && !unlocksFor(session, questRegistry).isUnlocked(quest.getIndex())) {
+                return QuestStatus.LOCKED;
+            }
+            return status;
+        }
+
+        public int getQuestProgress(Player player, Quest quest) {
+            PlayerSession session = sessions.get(player.getUniqueId());
+            if (session == null) return 0;
+            applyResets(player, session);
+            return session.getProgress().getProgress(quest.getIndex());
+        }
+
+        public void startQuest(Player player, Quest quest) {
+            PlayerSession session = sessions.get(player.getUniqueId());
+            if (session == null) return;
+            if (session.getState() == PlayerSession.State.LOADING) {
+                if (session.defer(() -> startQuest(player, quest))) {
+                    player.sendMessage(ChatColor.YELLOW + "Your quest data is still loading; the quest will start in a moment.");
+                    return;
+                }
+                if (session.getState() == PlayerSession.State.LOADING) {
+                    plugin.getLogger().warning("Too many queued quest actions for " + player.getName() + " while their progress loads; refusing to start " + quest.getKey() + ".");
+                    player.sendMessage(ChatColor.YELLOW + "Your quest data is still loading; please try again in a moment.");
+                    return;
+                }
+            }
+
+            applyResets(player, session);
+            QuestRegistry questRegistry = registry;
+            if (!unlocksFor(session, questRegistry).isUnlocked(quest.getIndex())) {
+                player.sendMessage(ChatColor.RED + "Complete " + describePrerequisites(questRegistry, quest) + " to unlock this quest.");
+                return;
+            }
+            PlayerProgressStore progressStore = session.getProgress();
+            long current = progressStore.get(quest.getIndex());
+            if (PlayerProgressStore.status(current) != QuestStatus.AVAILABLE) return;
+            long entry = progressStore.compareAndSet(quest.getIndex(), current, PlayerProgressStore.progress(current), QuestStatus.IN_PROGRESS);
+            if (entry != PlayerProgressStore.CONFLICT) {
+                session.setObjectives(session.getObjectives().with(quest));
+                savePlayerQuestData(player.getUniqueId(), quest, entry);
+                plugin.getQuestGUI().refreshQuest(player, quest.getId());
+                player.sendMessage(ChatColor.GREEN + "Quest Started: " + quest.getName());
+                if (quest.getType() == QuestType.REACH_LOCATION) {
+                    handleWorldEntered(player);
+                } else if (quest.getType() == QuestType.GATHER_ITEMS) {
+                    plugin.getInventoryTracker().markDirty(player);
+                }
+            }
+        }
+
+        public String describePrerequisites(QuestRegistry questRegistry, Quest quest) {
+            StringJoiner names = new StringJoiner(", ");
+            for (int prerequisite : questRegistry.getGraph().getPrerequisites(quest.getIndex())) {
+                Quest required = questRegistry.getByIndex(prerequisite);
+                if (required != null) names.add(required.getName());
+            }
+            return names.toString();
+        }
+
+        public void incrementQuestProgress(Player player, QuestType type, String target) {
+            incrementQuestProgress(player, type, ObjectiveIndex.targetId(type, target));
+        }
+
+        public void incrementQuestProgress(Player player, QuestType type, int targetId) {
+            applyProgress(player, type, targetId, 1);
+        }
+
+        public int applyProgress(ProgressBatch batch) {
+            QuestRegistry questRegistry = registry;
+            List<PlayerQuestData> writes = new ArrayList<>();
+            int advanced = 0;
+            for (ProgressBatch.PlayerDeltas deltas : batch.getPlayers()) {
+                PlayerSession session = sessions.get(deltas.player().getUniqueId());
+                if (session == null) continue;
+                if (session.getState() == PlayerSession.State.LOADING
+                        && session.deferProgress(deltas.amounts(), merged -> applyDeferred(session, deltas.player(), merged))) {
+                    continue;
+                }
+                advanced += applyDeltas(questRegistry, session, deltas, writes);
+            }
+            plugin.getProgressWriteBehind().markDirty(writes);
+            return advanced;
+        }
+
+        private int applyDeltas(QuestRegistry questRegistry, PlayerSession session, ProgressBatch.PlayerDeltas deltas, List<PlayerQuestData> writes) {
+            int advanced = 0;
+            for (Map.Entry<ProgressBatch.Objective, Integer> delta : deltas.amounts().entrySet()) {
+                QuestType type = delta.getKey().type();
+                int targetId = delta.getKey().targetId();
+                if (!questRegistry.getObjectives().contains(type, targetId)) continue;
+                for (int index : session.getObjectives().get(type, targetId)) {
+                    Quest quest = questRegistry.getByIndex(index);
+                    if (quest != null && advanceQuest(deltas.player(), session, quest, delta.getValue(), writes)) {
+                        advanced++;
+                    }
+                }
+            }
+            return advanced;
+        }
+
+        private void applyDeferred(PlayerSession session, Player player, Map<ProgressBatch.Objective, Integer> amounts) {
+            List<PlayerQuestData> writes = new ArrayList<>();
+            applyDeltas(registry, session, new ProgressBatch.PlayerDeltas(player, amounts), writes);
+            plugin.getProgressWriteBehind().markDirty(writes);
+        }
+
+        public void adjustGatherProgress(Player player, Material material, int delta) {
+            if (delta != 0) {
+                applyProgress(player, QuestType.GATHER_ITEMS, material.ordinal(), delta);
+            }
+        }
+
+        private void applyProgress(Player player, QuestType type, int targetId, int amount) {
+            QuestRegistry questRegistry = registry;
+            if (!questRegistry.getObjectives().contains(type, targetId)) return;
+
+            PlayerSession session = sessions.get(player.getUniqueId());
+            if (session == null) return;
+            if (session.getState() == PlayerSession.State.LOADING
+                    && session.deferProgress(Map.of(new ProgressBatch.Objective(type, targetId), amount),
+                    merged -> applyDeferred(session, player, merged))) {
+                return;
+            }
+
+            int[] indices = session.getObjectives().get(type, targetId);
+            if (indices.length == 0) return;
+
+            for (int index : indices) {
+                Quest quest = questRegistry.getByIndex(index);
+                if (quest != null) advanceQuest(player, session, quest, amount, null);
+            }
+        }
+
+        public boolean reconcileInventory(Player player) {
+            PlayerSession session = sessions.get(player.getUniqueId());
+            if (session == null) return true;
+            if (session.getState() == PlayerSession.State.LOADING) return false;
+            if (session.getState() != PlayerSession.State.ACTIVE) return true;
+
+            ObjectiveIndex objectives = session.getObjectives();
+            int[] targets = objectives.targetIds(QuestType.GATHER_ITEMS);
+            if (targets.length == 0) return true;
+
+            int[] counts = new int[targets.length];
+            for (ItemStack item : player.getInventory().getContents()) {
+                countItem(targets, counts, item);
+            }
+            countItem(targets, counts, player.getItemOnCursor());
+
+            QuestRegistry questRegistry = registry;
+            PlayerProgressStore progressStore = session.getProgress();
+            for (int i = 0; i < targets.length; i++) {
+                for (int index : objectives.get(QuestType.GATHER_ITEMS, targets[i])) {
+                    Quest quest = questRegistry.getByIndex(index);
+                    if (quest != null) {
+                        advanceQuest(player, session, quest, counts[i] - progressStore.getProgress(index), null);
+                    }
+                }
+            }
+            return true;
+        }
+
+        private static void countItem(int[] targets, int[] counts, ItemStack item) {
+            if (item == null) return;
+            int i = Arrays.binarySearch(targets, item.getType().ordinal());
+            if (i >= 0) counts[i] += item.getAmount();
+        }
+
+        public void handleMove(Player player, Location location) {
+            if (location.getWorld() == null) return;
+            QuestRegistry questRegistry = registry;
+            LocationRegion[] regions = questRegistry.getSpatialIndex().regionsAt(
+                    location.getWorld().getName(), location.getBlockX() >> 4, location.getBlockZ() >> 4);
+            if (regions.length == 0) return;
+            checkRegions(player, questRegistry, regions, location.getBlockX(), location.getBlockY(), location.getBlockZ());
+        }
+
+        public void handleWorldEntered(Player player) {
+            Location location = player.getLocation();
+            if (location.getWorld() == null) return;
+            QuestRegistry questRegistry = registry;
+            LocationRegion[] regions = questRegistry.getSpatialIndex().worldRegions(location.getWorld().getName());
+            if (regions.length > 0) {
+                checkRegions(player, questRegistry, regions, location.getBlockX(), location.getBlockY(), location.getBlockZ());
+            }
+            handleMove(player, location);
+        }
+
+        private void checkRegions(Player player, QuestRegistry questRegistry, LocationRegion[] regions, int x, int y, int z) {
+            PlayerSession session = sessions.get(player.getUniqueId());
+            if (session == null || session.getState() != PlayerSession.State.ACTIVE) return;
+
+            ObjectiveIndex objectives = session.getObjectives();
+            for (LocationRegion region : regions) {
+                if (!objectives.contains(QuestType.REACH_LOCATION, region.getQuestIndex()) || !region.contains(x, y, z)) continue;
+                Quest quest = questRegistry.getByIndex(region.getQuestIndex());
+                if (quest != null) advanceQuest(player, session, quest, quest.getRequiredAmount(), null);
+            }
+        }
+
+        private boolean advanceQuest(Player player, PlayerSession session, Quest quest, int amount, List<PlayerQuestData> writes) {
+            applyResets(player, session);
+            PlayerProgressStore progressStore = session.getProgress();
+            int index = quest.getIndex();
+            int progress;
+            QuestStatus status;
+            long entry;
+            do {
+                long current = progressStore.get(index);
+                if (PlayerProgressStore.status(current) != QuestStatus.IN_PROGRESS) return false;
+                int before = PlayerProgressStore.progress(current);
+                progress = (int) Math.max(0L, Math.min((long) before + amount, quest.getRequiredAmount()));
+                if (progress == before && progress < quest.getRequiredAmount()) return false;
+                status = progress >= quest.getRequiredAmount() ? QuestStatus.COMPLETED : QuestStatus.IN_PROGRESS;
+                entry = progressStore.compareAndSet(index, current, progress, status);
+            } while (entry == PlayerProgressStore.CONFLICT);
+            if (status == QuestStatus.COMPLETED) {
+                session.setObjectives(session.getObjectives().without(quest));
+                plugin.getLeaderboardService().recordCompletion(player, session.getProgress().countCompleted(registry));
+                plugin.getProgressNotifier().completed(player, quest);
+                plugin.getRewardService().grant(player, quest);
+                player.sendMessage(ChatColor.GREEN + "Quest Completed: " + quest.getName() + "!");
+                QuestRegistry questRegistry = registry;
+                for (int unlockedIndex : unlocksFor(session, questRegistry).completed(index)) {
+                    Quest unlocked = questRegistry.getByIndex(unlockedIndex);
+                    if (unlocked == null) continue;
+                    player.sendMessage(ChatColor.AQUA + "Quest Unlocked: " + unlocked.getName());
+                    plugin.getQuestGUI().refreshQuest(player, unlocked.getId());
+                }
+            } else {
+                plugin.getProgressNotifier().progress(player, quest, progress);
+            }
+            if (writes == null) {
+                savePlayerQuestData(player.getUniqueId(), quest, entry);
+            } else {
+                writes.add(PlayerQuestData.of(player.getUniqueId(), quest.getId(), entry, getResetEpoch(quest)));
+            }
+            plugin.getQuestGUI().refreshQuest(player, quest.getId());
+            return true;
+        }
+
+        private void savePlayerQuestData(UUID playerUUID, Quest quest, long entry) {
+            plugin.getProgressWriteBehind().markDirty(PlayerQuestData.of(playerUUID, quest.getId(), entry, getResetEpoch(quest)));
+        }
+    }
+
+    public static final class QuestRegistry {
+        public static final QuestRegistry EMPTY = new QuestRegistry(0L, Map.of(), Map.of(), 0, Set.of());
+
+        private final long version;
+        private final Map<Integer, Quest> byId;
+        private final Quest[] byIndex;
+        private final Map<Integer, Long> revisions;
+        private final ObjectiveIndex objectives;
+        private final SpatialIndex spatialIndex;
+        private final Quest[] repeatables;
+        private final QuestGraph graph;
+        private final long watermark;
+
+        public QuestRegistry(long version, Map<Integer, Quest> quests, Map<Integer, Long> revisions, int capacity, Set<Long> prerequisites) {
+            this.version = version;
+            this.byId = Collections.unmodifiableMap(new TreeMap<>(quests));
+            this.byIndex = new Quest[capacity];
+            quests.values().forEach(quest -> byIndex[quest.getIndex()] = quest);
+            this.revisions = Map.copyOf(revisions);
+            this.objectives = ObjectiveIndex.of(quests.values());
+            this.spatialIndex = SpatialIndex.of(quests.values());
+            this.repeatables = this.byId.values().stream().filter(Quest::isRepeatable).toArray(Quest[]::new);
+            this.graph = QuestGraph.compile(this.byId, capacity, prerequisites);
+            this.watermark = revisions.values().stream().mapToLong(Long::longValue).max().orElse(0L);
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public int size() {
+            return byId.size();
+        }
+
+        public int capacity() {
+            return byIndex.length;
+        }
+
+        public Collection<Quest> getQuests() {
+            return byId.values();
+        }
+
+        public Quest getById(int id) {
+            return byId.get(id);
+        }
+
+        public Quest getByIndex(int index) {
+            return index >= 0 && index < byIndex.length ? byIndex[index] : null;
+        }
+
+        public ObjectiveIndex getObjectives() {
+            return objectives;
+        }
+
+        public SpatialIndex getSpatialIndex() {
+            return spatialIndex;
+        }
+
+        public Quest[] getRepeatables() {
+            return repeatables;
+        }
+
+        public QuestGraph getGraph() {
+            return graph;
+        }
+
+        public long getRevision(int id) {
+            return revisions.getOrDefault(id, 0L);
+        }
+
+        public long getWatermark() {
+            return watermark;
+        }
+    }
+
+    public static final class QuestGraph {
+        private static final int[] NONE = new int[0];
+
+        private final int[][] prerequisites;
+        private final int[][] dependents;
+        private final int[] order;
+        private final int[] ranks;
+        private final BitSet blocked;
+        private final Set<Long> edges;
+        private final List<String> problems;
+
+        private QuestGraph(int[][] prerequisites, int[][] dependents, int[] order, int[] ranks, BitSet blocked, Set<Long> edges, List<String> problems) {
+            this.prerequisites = prerequisites;
+            this.dependents = dependents;
+            this.order = order;
+            this.ranks = ranks;
+            this.blocked = blocked;
+            this.edges = edges;
+            this.problems = problems;
+        }
+
+        public static long edge(int questId, int requiredQuestId) {
+            return ((long) questId << 32) | (requiredQuestId & 0xFFFFFFFFL);
+        }
+
+        public static QuestGraph compile(Map<Integer, Quest> quests, int capacity, Set<Long> edges) {
+            List<String> problems = new ArrayList<>();
+            List<List<Integer>> required = new ArrayList<>(capacity);
+            List<List<Integer>> unlocks = new ArrayList<>(capacity);
+            for (int i = 0; i < capacity; i++) {
+                required.add(new ArrayList<>());
+                unlocks.add(new ArrayList<>());
+            }
+            for (long edge : edges) {
+                Quest quest = quests.get((int) (edge >>> 32));
+                Quest requirement = quests.get((int) edge);
+                if (quest == null || requirement == null) {
+                    problems.add("Ignoring prerequisite " + (int) edge + " of quest " + (int) (edge >>> 32) + ": quest not found.");
+                    continue;
+                }
+                if (requirement.isRepeatable()) {
+                    // A reset would re-lock every dependent, and compacted epochs leave no record of earlier completions.
+                    problems.add("Ignoring prerequisite " + requirement.getId() + " of quest " + quest.getId() + ": repeatable quests cannot be prerequisites.");
+                    continue;
+                }
+                required.get(quest.getIndex()).add(requirement.getIndex());
+                unlocks.get(requirement.getIndex()).add(quest.getIndex());
+            }
+
+            int[][] prerequisites = new int[capacity][];
+            int[][] dependents = new int[capacity][];
+            int[] missing = new int[capacity];
+            for (int i = 0; i < capacity; i++) {
+                prerequisites[i] = required.get(i).isEmpty() ? NONE : required.get(i).stream().mapToInt(Integer::intValue).sorted().toArray();
+                dependents[i] = unlocks.get(i).isEmpty() ? NONE : unlocks.get(i).stream().mapToInt(Integer::intValue).sorted().toArray();
+                missing[i] = prerequisites[i].length;
+            }
+
+            PriorityQueue<Quest> ready = new PriorityQueue<>(Comparator.comparingInt(Quest::getId));
+            for (Quest quest : quests.values()) {
+                if (missing[quest.getIndex()] == 0) ready.add(quest);
+            }
+            Quest[] byIndex = new Quest[capacity];
+            quests.values().forEach(quest -> byIndex[quest.getIndex()] = quest);
+            int[] order = new int[quests.size()];
+            int[] ranks = new int[capacity];
+            Arrays.fill(ranks, Integer.MAX_VALUE);
+            int sorted = 0;
+            while (!ready.isEmpty()) {
+                int index = ready.poll().getIndex();
+                ranks[index] = sorted;
+                order[sorted++] = index;
+                for (int dependent : dependents[index]) {
+                    if (--missing[dependent] == 0) ready.add(byIndex[dependent]);
+                }
+            }
+
+            BitSet blocked = new BitSet(capacity);
+            if (sorted < order.length) {
+                List<Integer> cyclic = new ArrayList<>();
+                for (Quest quest : quests.values()) {
+                    if (ranks[quest.getIndex()] == Integer.MAX_VALUE) {
+                        blocked.set(quest.getIndex());
+                        cyclic.add(quest.getId());
+                    }
+                }
+                problems.add("Quests " + cyclic + " form or depend on a prerequisite cycle and will stay locked.");
+            }
+            return new QuestGraph(prerequisites, dependents, Arrays.copyOf(order, sorted), ranks, blocked, Set.copyOf(edges), List.copyOf(problems));
+        }
+
+        public int[] getPrerequisites(int index) {
+            return index < prerequisites.length ? prerequisites[index] : NONE;
+        }
+
+        public int[] getDependents(int index) {
+            return index < dependents.length ? dependents[index] : NONE;
+        }
+
+        public int[] getOrder() {
+            return order;
+        }
+
+        public int getRank(int index) {
+            return index < ranks.length ? ranks[index] : Integer.MAX_VALUE;
+        }
+
+        public boolean isBlocked(int index) {
+            return blocked.get(index);
+        }
+
+        public int capacity() {
+            return prerequisites.length;
+        }
+
+        public Set<Long> getEdges() {
+            return edges;
+        }
+
+        public int getEdgeCount() {
+            return edges.size();
+        }
+
+        public List<String> getProblems() {
+            return problems;
+        }
+    }
+
+    public static final class UnlockSet {
+        public static final UnlockSet EMPTY = new UnlockSet(QuestRegistry.EMPTY.getGraph(), new AtomicIntegerArray(0));
+
+        private final QuestGraph graph;
+        private final AtomicIntegerArray missing;
+
+        private UnlockSet(QuestGraph graph, AtomicIntegerArray missing) {
+            this.graph = graph;
+            this.missing = missing;
+        }
+
+        public static UnlockSet build(QuestGraph graph, PlayerProgressStore progress) {
+            AtomicIntegerArray missing = new AtomicIntegerArray(graph.capacity());
+            for (int index : graph.getOrder()) {
+                int count = 0;
+                for (int prerequisite : graph.getPrerequisites(index)) {
+                    if (progress.getStatus(prerequisite) != QuestStatus.COMPLETED) count++;
+                }
+                missing.set(index, count);
+            }
+            for (int index = graph.capacity() - 1; index >= 0; index--) {
+                if (graph.isBlocked(index)) missing.set(index, Integer.MAX_VALUE);
+            }
+            return new UnlockSet(graph, missing);
+        }
+
+        public QuestGraph getGraph() {
+            return graph;
+        }
+
+        public boolean isUnlocked(int index) {
+            return index >= missing.length() || missing.get(index) == 0;
+        }
+
+        public int[] completed(int index) {
+            int[] dependents = graph.getDependents(index);
+            int unlocked = 0;
+            int[] result = new int[dependents.length];
+            for (int dependent : dependents) {
+                if (missing.get(dependent) != Integer.MAX_VALUE && missing.decrementAndGet(dependent) == 0) {
+                    result[unlocked++] = dependent;
+                }
+            }
+            return unlocked == result.length ? result : Arrays.copyOf(result, unlocked);
+        }
+    }
+
+    public static final class PlayerProgressStore {
+        public static final int VERSION_BITS = 29;
+        public static final int VERSION_MASK = (1 << VERSION_BITS) - 1;
+        public static final long CONFLICT = -1L;
+
+        private static final QuestStatus[] STATUSES = QuestStatus.values();
+        private static final long PROGRESS_MASK = 0xFFFFFFFFL;
+        private static final int STATUS_SHIFT = 32;
+        private static final long STATUS_MASK = 0x3L;
+        private static final int VERSION_SHIFT = 34;
+        private static final long MOVED = -1L;
+
+        private volatile AtomicLongArray entries;
+        // Replaced by grow(); written only under the same monitor so no epoch lands in a discarded array.
+        private volatile int[] epochs;
+
+        public PlayerProgressStore() {
+            this(0);
+        }
+
+        public PlayerProgressStore(int capacity) {
+            this.entries = new AtomicLongArray(Math.max(0, capacity));
+            this.epochs = new int[Math.max(0, capacity)];
+        }
+
+        public static QuestStatus status(long entry) {
+            return STATUSES[(int) ((entry >>> STATUS_SHIFT) & STATUS_MASK)];
+        }
+
+        public static int progress(long entry) {
+            return (int) (entry & PROGRESS_MASK);
+        }
+
+        public static int version(long entry) {
+            return (int) (entry >>> VERSION_SHIFT);
+        }
+
+        public static boolean isNewer(int version, int than) {
+            int distance = (version - than) & VERSION_MASK;
+            return distance != 0 && distance <= VERSION_MASK >> 1;
+        }
+
+        private static long pack(int progress, QuestStatus status, int version) {
+            return ((long) (version & VERSION_MASK) << VERSION_SHIFT) | ((long) status.ordinal() << STATUS_SHIFT) | (progress & PROGRESS_MASK);
+        }
+
+        public long get(int index) {
+            while (true) {
+                AtomicLongArray current = entries;
+                if (index < 0 || index >= current.length()) return 0L;
+                long entry = current.get(index);
+                if (entry != MOVED) return entry;
+                Thread.onSpinWait();
+            }
+        }
+
+        public QuestStatus getStatus(int index) {
+            return status(get(index));
+        }
+
+        public int getProgress(int index) {
+            return progress(get(index));
+        }
+
+        public long compareAndSet(int index, long expected, int progress, QuestStatus status) {
+            long next = pack(progress, status, version(expected) + 1);
+            while (true) {
+                AtomicLongArray current = entries;
+                if (index >= current.length()) {
+                    grow(index + 1);
+                    continue;
+                }
+                if (current.compareAndSet(index, expected, next)) return next;
+                if (current.get(index) != MOVED) return CONFLICT;
+                Thread.onSpinWait();
+            }
+        }
+
+        public long set(int index, int progress, QuestStatus status) {
+            while (true) {
+                long next = compareAndSet(index, get(index), progress, status);
+                if (next != CONFLICT) return next;
+            }
+        }
+
+        public synchronized void load(int index, int progress, QuestStatus status, int version, int epoch) {
+            if (index >= entries.length()) {
+                grow(index + 1);
+            }
+            entries.set(index, pack(progress, status, version));
+            epochs[index] = epoch;
+        }
+
+        public int getEpoch(int index) {
+            int[] current = epochs;
+            return index >= 0 && index < current.length ? current[index] : 0;
+        }
+
+        public synchronized void setEpoch(int index, int epoch) {
+            if (index >= epochs.length) {
+                grow(index + 1);
+            }
+            epochs[index] = epoch;
+        }
+
+        private synchronized void grow(int minimum) {
+            AtomicLongArray current = entries;
+            if (current.length() >= minimum) return;
+            AtomicLongArray next = new AtomicLongArray(Math.max(minimum, current.length() + (current.length() >> 1)));
+            epochs = Arrays.copyOf(epochs, next.length());
+            for (int i = 0; i < current.length(); i++) {
+                next.set(i, current.getAndSet(i, MOVED));
+            }
+            entries = next;
+        }
+
+        public int capacity() {
+            return entries.length();
+        }
+
+        public int countCompleted(QuestRegistry registry) {
+            int count = 0;
+            for (int index = 0, capacity = capacity(); index < capacity; index++) {
+                if (getStatus(index) != QuestStatus.COMPLETED) continue;
+                Quest quest = registry.getByIndex(index);
+                if (quest == null || !quest.isRepeatable()) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    public static final class CompletionBitmap {
+        private static final byte RAW = 1;
+        private static final byte DEFLATED = 2;
+        private static final int DEFLATE_THRESHOLD = 64;
+
+        private CompletionBitmap() {
+        }
+
+        public static byte[] encode(BitSet completed) {
+            byte[] raw = completed.toByteArray();
+            if (raw.length >= DEFLATE_THRESHOLD) {
+                Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+                try {
+                    deflater.setInput(raw);
+                    deflater.finish();
+                    byte[] compressed = new byte[raw.length + 5];
+                    compressed[0] = DEFLATED;
+                    ByteBuffer.wrap(compressed, 1, 4).putInt(raw.length);
+                    int length = deflater.deflate(compressed, 5, raw.length);
+                    if (deflater.finished() && length < raw.length - 4) {
+                        return Arrays.copyOf(compressed, length + 5);
+                    }
+                } finally {
+                    deflater.end();
+                }
+            }
+            byte[] encoded = new byte[raw.length + 1];
+            encoded[0] = RAW;
+            System.arraycopy(raw, 0, encoded, 1, raw.length);
+            return encoded;
+        }
+
+        public static BitSet decode(byte[] encoded) {
+            if (encoded == null || encoded.length == 0) return new BitSet();
+            if (encoded[0] == RAW) {
+                return BitSet.valueOf(ByteBuffer.wrap(encoded, 1, encoded.length - 1));
+            }
+            if (encoded[0] != DEFLATED || encoded.length < 5) {
+                throw new IllegalArgumentException("Unknown completion bitmap format " + encoded[0]);
+            }
+            byte[] raw = new byte[ByteBuffer.wrap(encoded, 1, 4).getInt()];
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(encoded, 5, encoded.length - 5);
+                if (inflater.inflate(raw) != raw.length || !inflater.finished()) {
+                    throw new IllegalArgumentException("Truncated completion bitmap");
+                }
+            } catch (DataFormatException e) {
+                throw new IllegalArgumentException("Corrupt completion bitmap", e);
+            } finally {
+                inflater.end();
+            }
+            return BitSet.valueOf(raw);
+        }
+    }
+
+
+    public static class PlayerSession {
+        public enum State {
+            LOADING,
+            ACTIVE,
+            SAVING
+        }
+
+        private static final int MAX_DEFERRED_ACTIONS = 256;
+
+        private final UUID playerUUID;
+        private final CompletableFuture<Void> loaded = new CompletableFuture<>();
+        private final List<Runnable> deferred = new ArrayList<>();
+        private int deferredActions;
+        private volatile State state = State.LOADING;
+        private volatile PlayerProgressStore progress = new PlayerProgressStore();
+        private volatile ObjectiveIndex objectives = ObjectiveIndex.EMPTY;
+        private volatile UnlockSet unlocks = UnlockSet.EMPTY;
+        private volatile long resetRegistryVersion = -1L;
+        private volatile int resetDay = Integer.MIN_VALUE;
+        private boolean saveRequested;
+
+        public PlayerSession(UUID playerUUID) {
+            this.playerUUID = playerUUID;
+        }
+
+        public UUID getPlayerUUID() {
+            return playerUUID;
+        }
+
+        public State getState() {
+            return state;
+        }
+
+        public PlayerProgressStore getProgress() {
+            return progress;
+        }
+
+        public ObjectiveIndex getObjectives() {
+            return objectives;
+        }
+
+        public void setObjectives(ObjectiveIndex objectives) {
+            this.objectives = objectives;
+        }
+
+        public UnlockSet getUnlocks() {
+            return unlocks;
+        }
+
+        public void setUnlocks(UnlockSet unlocks) {
+            this.unlocks = unlocks;
+        }
+
+        boolean isResetApplied(long registryVersion, int day) {
+            return resetRegistryVersion == registryVersion && resetDay == day;
+        }
+
+        void markResetApplied(long registryVersion, int day) {
+            resetRegistryVersion = registryVersion;
+            resetDay = day;
+        }
+
+        public CompletableFuture<Void> whenLoaded() {
+            return loaded;
+        }
+
+        /**
+         * Queues an action until the session has loaded. Returns false once the session is active or the
+         * queue is full, in which case the caller must handle the action itself.
+         */
+        public synchronized boolean defer(Runnable action) {
+            if (state != State.LOADING || deferredActions >= MAX_DEFERRED_ACTIONS) return false;
+            deferred.add(action);
+            deferredActions++;
+            return true;
+        }
+
+        /**
+         * Queues progress deltas until the session has loaded. Deltas arriving back to back are summed per
+         * objective, so the queue stays bounded however many events come in.
+         */
+        public synchronized boolean deferProgress(Map<ProgressBatch.Objective, Integer> amounts,
+                                                  Consumer<Map<ProgressBatch.Objective, Integer>> apply) {
+            if (state != State.LOADING) return false;
+            DeferredProgress pending = deferred.isEmpty() ? null
+                    : deferred.get(deferred.size() - 1) instanceof DeferredProgress last ? last : null;
+            if (pending == null) {
+                pending = new DeferredProgress(apply);
+                deferred.add(pending);
+            }
+            for (Map.Entry<ProgressBatch.Objective, Integer> amount : amounts.entrySet()) {
+                pending.amounts.merge(amount.getKey(), amount.getValue(), Integer::sum);
+            }
+            return true;
+        }
+
+        synchronized boolean activate(PlayerProgressStore loadedProgress, ObjectiveIndex loadedObjectives, UnlockSet loadedUnlocks) {
+            progress = loadedProgress;
+            objectives = loadedObjectives;
+            unlocks = loadedUnlocks;
+            loaded.complete(null);
+            if (!deferred.isEmpty()) {
+                return true;
+            }
+            state = saveRequested ? State.SAVING : State.ACTIVE;
+            return false;
+        }
+
+        void replayDeferred() {
+            List<Runnable> actions;
+            synchronized (this) {
+                actions = new ArrayList<>(deferred);
+                deferred.clear();
+                deferredActions = 0;
+                state = saveRequested ? State.SAVING : State.ACTIVE;
+            }
+            actions.forEach(Runnable::run);
+        }
+
+
+        private static final class DeferredProgress implements Runnable {
+            private final Map<ProgressBatch.Objective, Integer> amounts = new LinkedHashMap<>();
+            private final Consumer<Map<ProgressBatch.Objective, Integer>> apply;
+
+            private DeferredProgress(Consumer<Map<ProgressBatch.Objective, Integer>> apply) {
+                this.apply = apply;
+            }
+
+            @Override
+            public void run() {
+                apply.accept(amounts);
+            }
+        }
+
+        synchronized boolean isSaveRequested() {
+            return saveRequested;
+        }
+
+        synchronized void beginSaving() {
+            saveRequested = true;
+            if (state == State.ACTIVE) {
+                state = State.SAVING;
+            }
+        }
+
+        synchronized void resume() {
+            saveRequested = false;
+            if (state == State.SAVING) {
+                state = State.ACTIVE;
+            }
+        }
+    }
+
+    public static class ProgressWriteBehind {
+        private final QuestSystem plugin;
+        private final Map<ProgressKey, PlayerQuestData> dirty = new ConcurrentHashMap<>();
+        private final AtomicBoolean flushScheduled = new AtomicBoolean();
+        private final Object flushLock = new Object();
+        private final long flushIntervalTicks;
+        private final int flushThreshold;
+        private final ProgressJournal journal;
+        private final long journalSyncTicks;
+        private BukkitTask flushTask;
+        private BukkitTask journalSyncTask;
+        private volatile boolean flushing;
+
+        public ProgressWriteBehind(QuestSystem plugin) {
+            this.plugin = plugin;
+            FileConfiguration config = plugin.getConfig();
+            this.flushIntervalTicks = Math.max(1L, config.getLong("persistence.flush-interval-ticks", 100L));
+            this.flushThreshold = Math.max(1, config.getInt("persistence.flush-threshold", 500));
+            this.journal = config.getBoolean("persistence.journal.enabled", true)
+                    ? new ProgressJournal(plugin, new File(plugin.getDataFolder(), "journal"),
+                    Math.max(4, config.getInt("persistence.journal.segment-size-kb", 1024)) * 1024)
+                    : null;
+            this.journalSyncTicks = Math.max(1L, config.getLong("persistence.journal.sync-interval-ticks", 20L));
+        }
+
+        public void recover() {
+            if (journal == null) return;
+            try {
+                ProgressJournal.Recovery recovery = journal.replay();
+                journal.open(recovery.lastSegmentId() + 1);
+                if (recovery.entries().isEmpty()) return;
+
+                plugin.getLogger().warning("Recovering " + recovery.entries().size() + " quest progress entries from the journal.");
+                record(recovery.entries());
+                journal.sync();
+                journal.release(recovery.lastSegmentId());
+            } catch (IOException e) {
+                plugin.getLogger().severe("Could not open the progress journal; progress will only be kept in memory until flushed.");
+                e.printStackTrace();
+            }
+        }
+
+        public void start() {
+            if (journal != null) {
+                journalSyncTask = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, journal::sync, journalSyncTicks, journalSyncTicks);
+            }
+        }
+
+        public void startFlushing() {
+            if (flushTask != null) return;
+            flushing = true;
+            flushTask = Bukkit.getScheduler().runTaskTimer(plugin, this::scheduleFlush, flushIntervalTicks, flushIntervalTicks);
+            if (dirty.size() >= flushThreshold) {
+                scheduleFlush();
+            }
+        }
+
+        public void markDirty(PlayerQuestData data) {
+            ProgressKey key = new ProgressKey(data.getPlayerUUID(), data.getQuestId());
+            if (journal != null) {
+                synchronized (journal) {
+                    journal.append(data);
+                    dirty.merge(key, data, ProgressWriteBehind::latest);
+                }
+            } else {
+                dirty.merge(key, data, ProgressWriteBehind::latest);
+            }
+            if (dirty.size() >= flushThreshold) {
+                scheduleFlush();
+            }
+        }
+
+        public void markDirty(Collection<PlayerQuestData> batch) {
+            if (batch.isEmpty()) return;
+            record(batch);
+            if (dirty.size() >= flushThreshold) {
+                scheduleFlush();
+            }
+        }
+
+        private void record(Collection<PlayerQuestData> batch) {
+            if (journal != null) {
+                synchronized (journal) {
+                    for (PlayerQuestData data : batch) {
+                        journal.append(data);
+                        dirty.merge(new ProgressKey(data.getPlayerUUID(), data.getQuestId()), data, ProgressWriteBehind::latest);
+                    }
+                }
+            } else {
+                for (PlayerQuestData data : batch) {
+                    dirty.merge(new ProgressKey(data.getPlayerUUID(), data.getQuestId()), data, ProgressWriteBehind::latest);
+                }
+            }
+        }
+
+        private void scheduleFlush() {
+            if (!flushing || dirty.isEmpty() || !flushScheduled.compareAndSet(false, true)) return;
+            plugin.getDatabaseExecutor().run(DatabaseExecutor.Priority.NORMAL, () -> {
+                flushScheduled.set(false);
+                flushAll();
+            }).exceptionally(e -> {
+                flushScheduled.set(false);
+                return null;
+            });
+        }
+
+        public CompletableFuture<Void> flushPlayer(UUID playerUUID) {
+            return plugin.getDatabaseExecutor().run(DatabaseExecutor.Priority.HIGH, () -> {
+                if (!flush(key -> key.playerUUID().equals(playerUUID), false)) {
+                    throw new CompletionException(new SQLException("Quest progress of " + playerUUID + " is still unsaved."));
+                }
+            });
+        }
+
+        public void flushAll() {
+            flush(key -> true, true);
+        }
+
+        public CompletableFuture<Void> flushRecovered() {
+            return plugin.getDatabaseExecutor().run(DatabaseExecutor.Priority.HIGH, () -> {
+                if (!dirty.isEmpty() && !flush(key -> true, true)) {
+                    plugin.getLogger().severe("Recovered quest progress could not be written yet; it stays journaled and will be retried.");
+                }
+            });
+        }
+
+        public void shutdown() {
+            if (flushTask != null) {
+                flushTask.cancel();
+            }
+            if (journalSyncTask != null) {
+                journalSyncTask.cancel();
+            }
+            flushAll();
+            if (!dirty.isEmpty()) {
+                plugin.getLogger().severe(dirty.size() + " quest progress entries could not be saved on shutdown; they will be recovered from the journal.");
+            }
+            if (journal != null) {
+                journal.close(dirty.isEmpty());
+            }
+        }
+
+        private boolean flush(Predicate<ProgressKey> filter, boolean releaseJournal) {
+            synchronized (flushLock) {
+                long sealedSegment = releaseJournal && journal != null ? journal.seal() : -1L;
+                List<ProgressKey> keys = new ArrayList<>();
+                List<PlayerQuestData> entries = new ArrayList<>();
+                for (Map.Entry<ProgressKey, PlayerQuestData> entry : dirty.entrySet()) {
+                    if (!filter.test(entry.getKey())) continue;
+                    PlayerQuestData data = entry.getValue();
+                    if (dirty.remove(entry.getKey(), data)) {
+                        keys.add(entry.getKey());
+                        entries.add(data);
+                    }
+                }
+                if (keys.isEmpty()) {
+                    if (sealedSegment >= 0) {
+                        journal.release(sealedSegment);
+                    }
+                    return true;
+                }
+
+                QuestManager questManager = plugin.getQuestManager();
+                List<PlayerQuestData> rows = new ArrayList<>(entries.size());
+                Map<UUID, List<Integer>> completions = new HashMap<>();
+                for (PlayerQuestData data : entries) {
+                    Quest quest = questManager == null ? null : questManager.getQuestById(data.getQuestId());
+                    if (data.getStatus() == QuestStatus.COMPLETED && quest != null && !quest.isRepeatable()) {
+                        completions.computeIfAbsent(data.getPlayerUUID(), ignored -> new ArrayList<>()).add(data.getQuestId());
+                    } else {
+                        rows.add(data);
+                    }
+                }
+
+                RewardService rewardService = plugin.getRewardService();
+                List<RewardService.RewardClaim> claims = List.of();
+                long started = plugin.getMetrics().startTimer();
+                try (Connection conn = plugin.getDatabaseManager().getConnection()) {
+                    conn.setAutoCommit(false);
+                    try (PreparedStatement ps = conn.prepareStatement(plugin.getDatabaseManager().getDialect().upsertProgressSql())) {
+                        for (PlayerQuestData data : rows) {
+                            ps.setString(1, data.getPlayerUUID().toString());
+                            ps.setInt(2, data.getQuestId());
+                            ps.setInt(3, data.getProgress());
+                            ps.setString(4, data.getStatus().name());
+                            ps.setInt(5, data.getVersion());
+                            ps.setInt(6, data.getResetEpoch());
+                            ps.addBatch();
+                        }
+                        if (!rows.isEmpty()) {
+                            ps.executeBatch();
+                        }
+                        for (Map.Entry<UUID, List<Integer>> completion : completions.entrySet()) {
+                            plugin.getDatabaseManager().mergeCompletedQuests(conn, completion.getKey(), completion.getValue());
+                        }
+                        if (rewardService != null) {
+                            claims = rewardService.recordClaims(conn, entries);
+                        }
+                        conn.commit();
+                    } catch (SQLException e) {
+                        conn.rollback();
+                        throw e;
+                    }
+                } catch (SQLException e) {
+                    for (int i = 0; i < keys.size(); i++) {
+                        dirty.putIfAbsent(keys.get(i), entries.get(i));
+                    }
+                    plugin.getLogger().severe("Could not flush " + keys.size() + " quest progress entries; they will be retried.");
+                    e.printStackTrace();
+                    return false;
+                } finally {
+                    plugin.getMetrics().recordQuery(QuestMetrics.Query.FLUSH_PROGRESS, started, keys.size());
+                }
+                if (sealedSegment >= 0) {
+                    journal.release(sealedSegment);
+                }
+                if (rewardService != null) {
+                    rewardService.claimsRecorded(claims);
+                }
+                return true;
+            }
+        }
+
+        public int getPendingWrites() {
+            return dirty.size();
+        }
+
+        static PlayerQuestData latest(PlayerQuestData existing, PlayerQuestData incoming) {
+            return PlayerProgressStore.isNewer(existing.getVersion(), incoming.getVersion()) ? existing : incoming;
+        }
+
+        private record ProgressKey(UUID playerUUID, int questId) {
+        }
+    }
+
+    public static class ProgressJournal {
+        private static final int MAGIC = 0x51534A31;
+        private static final int HEADER_SIZE = 8;
+        private static final int RECORD_SIZE = 36;
+        private static final int LEGACY_RECORD_SIZE = 32;
+        private static final int CHECKSUMMED_SIZE = RECORD_SIZE - 4;
+        private static final String SEGMENT_PREFIX = "segment-";
+        private static final String SEGMENT_SUFFIX = ".journal";
+
+        private final QuestSystem plugin;
+        private final File directory;
+        private final File checkpointFile;
+        private final int segmentSize;
+        private final CRC32 checksum = new CRC32();
+        private final byte[] record = new byte[RECORD_SIZE];
+        private final ByteBuffer recordBuffer = ByteBuffer.wrap(record);
+        private long segmentId;
+        private FileChannel channel;
+        private MappedByteBuffer buffer;
+        private boolean segmentHasRecords;
+        private volatile boolean unsynced;
+
+        public ProgressJournal(QuestSystem plugin, File directory, int segmentSize) {
+            this.plugin = plugin;
+            this.directory = directory;
+            this.checkpointFile = new File(directory, "checkpoint");
+            this.segmentSize = segmentSize - (segmentSize - HEADER_SIZE) % RECORD_SIZE;
+        }
+
+        public Recovery replay() throws IOException {
+            Files.createDirectories(directory.toPath());
+            long checkpoint = readCheckpoint();
+            long lastSegmentId = checkpoint;
+            Map<String, PlayerQuestData> latest = new LinkedHashMap<>();
+            for (long id : listSegments()) {
+                lastSegmentId = Math.max(lastSegmentId, id);
+                if (id <= checkpoint) {
+                    Files.deleteIfExists(segmentFile(id).toPath());
+                    continue;
+                }
+                ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(segmentFile(id).toPath()));
+                if (data.remaining() < HEADER_SIZE || data.getInt() != MAGIC) continue;
+                int recordSize = data.getInt();
+                if (recordSize != RECORD_SIZE && recordSize != LEGACY_RECORD_SIZE) continue;
+                while (data.remaining() >= recordSize) {
+                    int start = data.position();
+                    data.get(record, 0, recordSize);
+                    checksum.reset();
+                    checksum.update(record, 0, recordSize - 4);
+                    if ((int) checksum.getValue() != recordBuffer.getInt(recordSize - 4)) break;
+                    UUID playerUUID = new UUID(recordBuffer.getLong(0), recordBuffer.getLong(8));
+                    int questId = recordBuffer.getInt(16);
+                    int progress = recordBuffer.getInt(20);
+                    int state = recordBuffer.getInt(24);
+                    int resetEpoch = recordSize == RECORD_SIZE ? recordBuffer.getInt(28) : 0;
+                    int status = state & 0x3;
+                    if (state < 0 || status >= QuestStatus.LOCKED.ordinal()) break;
+                    PlayerQuestData entry = new PlayerQuestData(playerUUID, questId, progress, QuestStatus.values()[status], state >>> 2, resetEpoch);
+                    PlayerQuestData previous = latest.remove(playerUUID + ":" + questId);
+                    latest.put(playerUUID + ":" + questId, previous == null ? entry : ProgressWriteBehind.latest(previous, entry));
+                    data.position(start + recordSize);
+                }
+            }
+            return new Recovery(new ArrayList<>(latest.values()), lastSegmentId);
+        }
+
+        public synchronized void open(long firstSegmentId) throws IOException {
+            segmentId = firstSegmentId - 1;
+            roll();
+        }
+
+        public synchronized void append(PlayerQuestData data) {
+            if (buffer == null) return;
+            try {
+                if (buffer.remaining() < RECORD_SIZE) {
+                    buffer.force();
+                    roll();
+                }
+            } catch (IOException e) {
+                plugin.getLogger().severe("Could not roll the progress journal: " + e.getMessage());
+                buffer = null;
+                return;
+            }
+            recordBuffer.putLong(0, data.getPlayerUUID().getMostSignificantBits());
+            recordBuffer.putLong(8, data.getPlayerUUID().getLeastSignificantBits());
+            recordBuffer.putInt(16, data.getQuestId());
+            recordBuffer.putInt(20, data.getProgress());
+            recordBuffer.putInt(24, (data.getVersion() << 2) | data.getStatus().ordinal());
+            recordBuffer.putInt(28, data.getResetEpoch());
+            checksum.reset();
+            checksum.update(record, 0, CHECKSUMMED_SIZE);
+            recordBuffer.putInt(CHECKSUMMED_SIZE, (int) checksum.getValue());
+            buffer.put(record);
+            segmentHasRecords = true;
+            unsynced = true;
+        }
+
+        public void sync() {
+            if (!unsynced) return;
+            MappedByteBuffer current;
+            synchronized (this) {
+                current = buffer;
+                unsynced = false;
+            }
+            if (current != null) {
+                current.force();
+            }
+        }
+
+        public synchronized long seal() {
+            if (buffer == null || !segmentHasRecords) {
+                return segmentId - 1;
+            }
+            try {
+                buffer.force();
+                roll();
+                return segmentId - 1;
+            } catch (IOException e) {
+                plugin.getLogger().severe("Could not seal the progress journal: " + e.getMessage());
+                return -1L;
+            }
+        }
+
+        public synchronized void release(long upToSegmentId) {
+            if (upToSegmentId < 0) return;
+            try {
+                Path temp = new File(directory, "checkpoint.tmp").toPath();
+                Files.write(temp, Long.toString(upToSegmentId).getBytes(StandardCharsets.UTF_8));
+                Files.move(temp, checkpointFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                for (long id : listSegments()) {
+                    if (id <= upToSegmentId && id != segmentId) {
+                        Files.deleteIfExists(segmentFile(id).toPath());
+                    }
+                }
+            } catch (IOException e) {
+                plugin.getLogger().warning("Could not truncate the progress journal: " + e.getMessage());
+            }
+        }
+
+        public synchronized void close(boolean discard) {
+            if (buffer == null) return;
+            buffer.force();
+            buffer = null;
+            try {
+                channel.close();
+                if (discard) {
+                    release(segmentId);
+                    Files.deleteIfExists(segmentFile(segmentId).toPath());
+                }
+            } catch (IOException e) {
+                plugin.getLogger().warning("Could not close the progress journal: " + e.getMessage());
+            }
+        }
+
+        private void roll() throws IOException {
+            if (channel != null) {
+                channel.close();
+            }
+            segmentId++;
+            channel = FileChannel.open(segmentFile(segmentId).toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            buffer.putInt(MAGIC);
+            buffer.putInt(RECORD_SIZE);
+            segmentHasRecords = false;
+        }
+
+        private long readCheckpoint() throws IOException {
+            if (!checkpointFile.exists()) return 0L;
+            try {
+                return Long.parseLong(new String(Files.readAllBytes(checkpointFile.toPath()), StandardCharsets.UTF_8).trim());
+            } catch (NumberFormatException e) {
+                return 0L;
+            }
+        }
+
+        private List<Long> listSegments() {
+            List<Long> ids = new ArrayList<>();
+            String[] names = directory.list();
+            if (names == null) return ids;
+            for (String name : names) {
+                if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+                    try {
+                        ids.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+                    } catch (NumberFormatException ignored) {
+                    }
+                }
+            }
+            Collections.sort(ids);
+            return ids;
+        }
+
+        private File segmentFile(long id) {
+            return new File(directory, SEGMENT_PREFIX + id + SEGMENT_SUFFIX);
+        }
+
+        public record Recovery(List<PlayerQuestData> entries, long lastSegmentId) {
+        }
+    }
+
+    public static class QuestGUI {
+        static final String[] STRUCTURE = {
+                "# # # # # # # # #",
+                "# . . . . . . . #",
+                "# . . . . . . . #",
+                "# . . . . . . . #",
+                "# . . . . . . . #",
+                "# # # # # # # # #",
+                "# # < # # # > # #"
+        };
+        static final String[] MENU_STRUCTURE = {
+                "# # # # # # # # #",
+                "# . . . . . . . #",
+                "# . . . . . . . #",
+                "# . . . . . . . #",
+                "# . . . . . . . #",
+                "# # # # # # # # #",
+                "# f < # # # > s #"
+        };
+        static final ItemProvider BORDER = new ItemWrapper(new ItemBuilder(Material.TINTED_GLASS).setDisplayName(ChatColor.RESET.toString()).get());
+        private static final int PAGE_SIZE = 28;
+        private static final QuestStatus[] STATUSES = QuestStatus.values();
+
+        public enum MenuSort {
+            DEFAULT("Quest order", Comparator.comparingInt(Quest::getId)),
+            NAME("Name", Comparator.comparing((Quest quest) -> ChatColor.stripColor(quest.getName()), String.CASE_INSENSITIVE_ORDER).thenComparingInt(Quest::getId)),
+            REQUIRED_AMOUNT("Required amount", Comparator.comparingInt(Quest::getRequiredAmount).thenComparingInt(Quest::getId));
+
+            private final String label;
+            private final Comparator<Quest> comparator;
+
+            MenuSort(String label, Comparator<Quest> comparator) {
+                this.label = label;
+                this.comparator = comparator;
+            }
+
+            public String getLabel() {
+                return label;
+            }
+        }
+
+        private final QuestSystem plugin;
+        private final QuestManager questManager;
+        private final Map<UUID, QuestMenu> menus = new HashMap<>();
+        private volatile Map<Integer, QuestTemplate> templates = Map.of();
+        private volatile MenuIndex menuIndex = MenuIndex.of(QuestRegistry.EMPTY);
+
+        public QuestGUI(QuestSystem plugin) {
+            this.plugin = plugin;
+            this.questManager = plugin.getQuestManager();
+        }
+
+        public void openQuestList(Player player) {
+            MenuIndex index = menuIndex;
+            QuestMenu menu = menus.get(player.getUniqueId());
+            if (menu == null || menu.index != index || menu.progressStore != questManager.getProgressStore(player.getUniqueId())) {
+                menu = new QuestMenu(player, index, menu);
+                menus.put(player.getUniqueId(), menu);
+            }
+            menu.open();
+        }
+
+        public void forget(Player player) {
+            menus.remove(player.getUniqueId());
+        }
+
+        public int getTemplateCount() {
+            return templates.size();
+        }
+
+        public void refreshQuest(Player player, int questId) {
+            QuestMenu menu = menus.get(player.getUniqueId());
+            if (menu == null) return;
+            Quest quest = questManager.getQuestById(questId);
+            if (quest != null) {
+                menu.refresh(quest);
+            }
+        }
+
+        public void prepareTemplates(QuestRegistry registry) {
+            Map<Integer, QuestTemplate> previous = templates;
+            Map<Integer, QuestTemplate> prepared = new HashMap<>();
+            for (Quest quest : registry.getQuests()) {
+                QuestTemplate template = previous.get(quest.getId());
+                String requires = questManager.describePrerequisites(registry, quest);
+                prepared.put(quest.getId(), template != null && template.quest == quest && template.requires.equals(requires)
+                        ? template : new QuestTemplate(quest, requires));
+            }
+            templates = prepared;
+            menuIndex = MenuIndex.of(registry);
+        }
+
+        ItemProvider renderQuest(Player player, Quest quest) {
+            return getTemplate(quest).get(questManager.getQuestStatus(player, quest), questManager.getQuestProgress(player, quest));
+        }
+
+        private QuestTemplate getTemplate(Quest quest) {
+            QuestTemplate template = templates.get(quest.getId());
+            return template != null && template.quest == quest ? template : new QuestTemplate(quest, "");
+        }
+
+        private final class QuestMenu {
+            private final Player player;
+            private final MenuIndex index;
+            private final PlayerProgressStore progressStore;
+            private final byte[] statuses;
+            private final IndexList[][] byStatus;
+            private final Item[] slots = new Item[PAGE_SIZE];
+            private final Item filterButton;
+            private final Item sortButton;
+            private final Item previousButton;
+            private final Item nextButton;
+            private final Gui gui;
+            private int filter;
+            private MenuSort sort = MenuSort.DEFAULT;
+            private int page;
+            private boolean open;
+
+            private QuestMenu(Player player, MenuIndex index, QuestMenu previous) {
+                this.player = player;
+                this.index = index;
+                this.progressStore = questManager.getProgressStore(player.getUniqueId());
+                this.statuses = new byte[index.quests.length];
+                this.byStatus = new IndexList[STATUSES.length][MenuSort.values().length];
+                for (int status = 0; status < STATUSES.length; status++) {
+                    for (MenuSort menuSort : MenuSort.values()) {
+                        byStatus[status][menuSort.ordinal()] = new IndexList(index.ranks[menuSort.ordinal()]);
+                    }
+                }
+                for (Quest quest : index.quests) {
+                    if (quest != null) {
+                        statuses[quest.getIndex()] = (byte) questManager.getQuestStatus(player, quest).ordinal();
+                    }
+                }
+                for (MenuSort menuSort : MenuSort.values()) {
+                    for (int questIndex : index.orders[menuSort.ordinal()]) {
+                        byStatus[statuses[questIndex]][menuSort.ordinal()].add(questIndex);
+                    }
+                }
+                if (previous != null) {
+                    sort = previous.sort;
+                    filter = Math.max(0, index.filters.indexOf(previous.index.filters.get(previous.filter)));
+                }
+
+                for (int slot = 0; slot < PAGE_SIZE; slot++) {
+                    slots[slot] = new QuestItem(this, slot);
+                }
+                filterButton = new MenuButton(() -> button(Material.HOPPER, "Filter: " + index.filters.get(filter).label(),
+                        "Left-click for the next filter", "Right-click for the previous filter"),
+                        clickType -> {
+                            int count = index.filters.size();
+                            filter = Math.floorMod(filter + (clickType.isRightClick() ? -1 : 1), count);
+                            changePage(0);
+                        });
+                sortButton = new MenuButton(() -> button(Material.COMPASS, "Sort: " + sort.getLabel(), "Click to change the order"),
+                        clickType -> {
+                            MenuSort[] sorts = MenuSort.values();
+                            sort = sorts[Math.floorMod(sort.ordinal() + (clickType.isRightClick() ? -1 : 1), sorts.length)];
+                            changePage(0);
+                        });
+                previousButton = new MenuButton(() -> button(Material.ARROW, "Previous page", pageLabel()),
+                        clickType -> changePage(page - 1));
+                nextButton = new MenuButton(() -> button(Material.ARROW, "Next page", pageLabel()),
+                        clickType -> changePage(page + 1));
+
+                gui = Gui.normal()
+                        .setStructure(MENU_STRUCTURE)
+                        .addIngredient('#', BORDER)
+                        .addIngredient('f', filterButton)
+                        .addIngredient('s', sortButton)
+                        .addIngredient('<', previousButton)
+                        .addIngredient('>', nextButton)
+                        .build();
+                int slot = 0;
+                for (int y = 0; y < MENU_STRUCTURE.length; y++) {
+                    String row = MENU_STRUCTURE[y].replace(" ", "");
+                    for (int x = 0; x < row.length(); x++) {
+                        if (row.charAt(x) == '.') {
+                            gui.setItem(x, y, slots[slot++]);
+                        }
+                    }
+                }
+            }
+
+            private void open() {
+                open = true;
+                page = Math.min(page, pageCount() - 1);
+                Window.single().setViewer(player).setTitle(ChatColor.DARK_AQUA + "Available Quests").setGui(gui)
+                        .addCloseHandler(() -> open = false)
+                        .open();
+                prefetch();
+            }
+
+            private IndexList view() {
+                MenuFilter selected = index.filters.get(filter);
+                return selected.status() != null ? byStatus[selected.status().ordinal()][sort.ordinal()] : index.lists[filter][sort.ordinal()];
+            }
+
+            private Quest questAt(int slot) {
+                IndexList view = view();
+                int position = page * PAGE_SIZE + slot;
+                return position < view.size() ? index.quests[view.get(position)] : null;
+            }
+
+            private int pageCount() {
+                return Math.max(1, (view().size() + PAGE_SIZE - 1) / PAGE_SIZE);
+            }
+
+            private String pageLabel() {
+                return ChatColor.GRAY + "Page " + (page + 1) + "/" + pageCount();
+            }
+
+            private void changePage(int requested) {
+                int next = Math.max(0, Math.min(requested, pageCount() - 1));
+                page = next;
+                for (Item slot : slots) {
+                    slot.notifyWindows();
+                }
+                filterButton.notifyWindows();
+                sortButton.notifyWindows();
+                previousButton.notifyWindows();
+                nextButton.notifyWindows();
+                prefetch();
+            }
+
+            private void prefetch() {
+                int prefetchPage = page;
+                IndexList view = view();
+                Bukkit.getScheduler().runTask(plugin, () -> {
+                    if (!open || page != prefetchPage || view() != view) return;
+                    for (int neighbour = prefetchPage - 1; neighbour <= prefetchPage + 1; neighbour += 2) {
+                        int end = Math.min(view.size(), (neighbour + 1) * PAGE_SIZE);
+                        for (int position = Math.max(0, neighbour * PAGE_SIZE); position < end; position++) {
+                            renderQuest(player, index.quests[view.get(position)]);
+                        }
+                    }
+                });
+            }
+
+            private void refresh(Quest quest) {
+                int questIndex = quest.getIndex();
+                if (questIndex >= statuses.length || index.quests[questIndex] != quest) return;
+                QuestStatus status = questManager.getQuestStatus(player, quest);
+                int previous = statuses[questIndex];
+                if (status.ordinal() != previous) {
+                    statuses[questIndex] = (byte) status.ordinal();
+                    for (MenuSort menuSort : MenuSort.values()) {
+                        byStatus[previous][menuSort.ordinal()].remove(questIndex);
+                        byStatus[status.ordinal()][menuSort.ordinal()].insert(questIndex);
+                    }
+                    if (open && index.filters.get(filter).status() != null) {
+                        changePage(page);
+                        return;
+                    }
+                }
+                if (!open) return;
+                for (int slot = 0; slot < PAGE_SIZE; slot++) {
+                    if (questAt(slot) == quest) {
+                        slots[slot].notifyWindows();
+                    }
+                }
+            }
+        }
+
+        private static ItemProvider button(Material material, String name, String... lore) {
+            return new ItemBuilder(material).setDisplayName(ChatColor.YELLOW + name).addLoreLines(lore);
+        }
+
+        private final class QuestItem extends AbstractItem {
+            private final QuestMenu menu;
+            private final int slot;
+
+            private QuestItem(QuestMenu menu, int slot) {
+                this.menu = menu;
+                this.slot = slot;
+            }
+
+            @Override
+            public ItemProvider getItemProvider() {
+                Quest quest = menu.questAt(slot);
+                return quest == null ? ItemProvider.EMPTY : renderQuest(menu.player, quest);
+            }
+
+            @Override
+            public void handleClick(ClickType clickType, Player player, InventoryClickEvent event) {
+                Quest quest = menu.questAt(slot);
+                if (quest == null) return;
+                QuestStatus status = questManager.getQuestStatus(player, quest);
+                if (status == QuestStatus.AVAILABLE || status == QuestStatus.LOCKED) {
+                    questManager.startQuest(player, quest);
+                    notifyWindows();
+                }
+            }
+        }
+
+        private static final class MenuButton extends AbstractItem {
+            private final Supplier<ItemProvider> provider;
+            private final Consumer<ClickType> action;
+
+            private MenuButton(Supplier<ItemProvider> provider, Consumer<ClickType> action) {
+                this.provider = provider;
+                this.action = action;
+            }
+
+            @Override
+            public ItemProvider getItemProvider() {
+                return provider.get();
+            }
+
+            @Override
+            public void handleClick(ClickType clickType, Player player, InventoryClickEvent event) {
+                action.accept(clickType);
+            }
+        }
+
+        private record MenuFilter(String label, QuestStatus status, QuestType type, String category) {
+            private boolean matches(Quest quest) {
+                return (type == null || quest.getType() == type) && (category == null || category.equalsIgnoreCase(quest.getCategory()));
+            }
+        }
+
+        private static final class MenuIndex {
+            private final Quest[] quests;
+            private final int[][] orders;
+            private final int[][] ranks;
+            private final List<MenuFilter> filters;
+            private final IndexList[][] lists;
+
+            private MenuIndex(Quest[] quests, int[][] orders, int[][] ranks, List<MenuFilter> filters, IndexList[][] lists) {
+                this.quests = quests;
+                this.orders = orders;
+                this.ranks = ranks;
+                this.filters = filters;
+                this.lists = lists;
+            }
+
+            private static MenuIndex of(QuestRegistry registry) {
+                Quest[] quests = new Quest[registry.capacity()];
+                Set<QuestType> types = EnumSet.noneOf(QuestType.class);
+                Set<String> categories = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+                for (Quest quest : registry.getQuests()) {
+                    quests[quest.getIndex()] = quest;
+                    types.add(quest.getType());
+                    if (quest.getCategory() != null) {
+                        categories.add(quest.getCategory());
+                    }
+                }
+
+                List<MenuFilter> filters = new ArrayList<>();
+                filters.add(new MenuFilter("All quests", null, null, null));
+                for (QuestStatus status : STATUSES) {
+                    filters.add(new MenuFilter(ChatColor.stripColor(status.getDisplayName()), status, null, null));
+                }
+                for (QuestType type : types) {
+                    filters.add(new MenuFilter(type.name().replace("_", " "), null, type, null));
+                }
+                for (String category : categories) {
+                    filters.add(new MenuFilter(category, null, null, category));
+                }
+
+                MenuSort[] sorts = MenuSort.values();
+                int[][] orders = new int[sorts.length][];
+                int[][] ranks = new int[sorts.length][quests.length];
+                IndexList[][] lists = new IndexList[filters.size()][sorts.length];
+                QuestGraph graph = registry.getGraph();
+                for (MenuSort sort : sorts) {
+                    Comparator<Quest> comparator = sort == MenuSort.DEFAULT
+                            ? Comparator.comparingInt((Quest quest) -> graph.getRank(quest.getIndex())).thenComparing(sort.comparator)
+                            : sort.comparator;
+                    Quest[] sorted = Arrays.stream(quests).filter(Objects::nonNull).sorted(comparator).toArray(Quest[]::new);
+                    int[] order = new int[sorted.length];
+                    for (int rank = 0; rank < sorted.length; rank++) {
+                        order[rank] = sorted[rank].getIndex();
+                        ranks[sort.ordinal()][order[rank]] = rank;
+                    }
+                    orders[sort.ordinal()] = order;
+                    for (int filter = 0; filter < filters.size(); filter++) {
+                        MenuFilter menuFilter = filters.get(filter);
+                        if (menuFilter.status() != null) continue;
+                        IndexList list = new IndexList(ranks[sort.ordinal()]);
+                        for (Quest quest : sorted) {
+                            if (menuFilter.matches(quest)) {
+                                list.add(quest.getIndex());
+                            }
+                        }
+                        lists[filter][sort.ordinal()] = list;
+                    }
+                }
+                return new MenuIndex(quests, orders, ranks, List.copyOf(filters), lists);
+            }
+        }
+
+        private static final class IndexList {
+            private final int[] ranks;
+            private int[] values = new int[8];
+            private int size;
+
+            private IndexList(int[] ranks) {
+                this.ranks = ranks;
+            }
+
+            private int size() {
+                return size;
+            }
+
+            private int get(int position) {
+                return values[position];
+            }
+
+            private void add(int questIndex) {
+                if (size == values.length) {
+                    values = Arrays.copyOf(values, size * 2);
+                }
+                values[size++] = questIndex;
+            }
+
+            private void insert(int questIndex) {
+                int position = search(ranks[questIndex]);
+                if (position >= 0) return;
+                position = -position - 1;
+                if (size == values.length) {
+                    values = Arrays.copyOf(values, size * 2);
+                }
+                System.arraycopy(values, position, values, position + 1, size - position);
+                values[position] = questIndex;
+                size++;
+            }
+
+            private void remove(int questIndex) {
+                int position = search(ranks[questIndex]);
+                if (position < 0) return;
+                System.arraycopy(values, position + 1, values, position, size - position - 1);
+                size--;
+            }
+
+            private int search(int rank) {
+                int low = 0;
+                int high = size - 1;
+                while (low <= high) {
+                    int mid = (low + high) >>> 1;
+                    int midRank = ranks[values[mid]];
+                    if (midRank < rank) {
+                        low = mid + 1;
+                    } else if (midRank > rank) {
+                        high = mid - 1;
+                    } else {
+                        return mid;
+                    }
+                }
+                return -(low + 1);
+            }
+        }
+
+        private static final class QuestTemplate {
+            private static final int MAX_CACHED_PROGRESS = 1024;
+
+            private final Quest quest;
+            private final String requires;
+            private final List<String> baseLore = new ArrayList<>();
+            private ItemProvider available;
+            private ItemProvider completed;
+            private ItemProvider locked;
+            private ItemProvider[] inProgress;
+
+            private QuestTemplate(Quest quest, String requires) {
+                this.quest = quest;
+                this.requires = requires;
+                quest.getDescription().forEach(line -> baseLore.add(ChatColor.GRAY + line));
+                baseLore.add(" ");
+                baseLore.add(ChatColor.WHITE + "Objective: " + ChatColor.YELLOW + quest.getType().name().replace("_", " ") + " " + quest.getRequiredAmount() + " " + quest.getTarget());
+                baseLore.add(" ");
+            }
+
+            private ItemProvider get(QuestStatus status, int progress) {
+                switch (status) {
+                    case AVAILABLE:
+                        if (available == null) {
+                            available = render(QuestStatus.AVAILABLE, 0);
+                        }
+                        return available;
+                    case COMPLETED:
+                        if (completed == null) {
+                            completed = render(QuestStatus.COMPLETED, 0);
+                        }
+                        return completed;
+                    case LOCKED:
+                        if (locked == null) {
+                            locked = render(QuestStatus.LOCKED, 0);
+                        }
+                        return locked;
+                    default:
+                        if (inProgress == null) {
+                            inProgress = new ItemProvider[Math.min(quest.getRequiredAmount(), MAX_CACHED_PROGRESS) + 1];
+                        }
+                        if (progress < 0 || progress >= inProgress.length) {
+                            return render(status, progress);
+                        }
+                        ItemProvider provider = inProgress[progress];
+                        if (provider == null) {
+                            provider = render(status, progress);
+                            inProgress[progress] = provider;
+                        }
+                        return provider;
+                }
+            }
+
+            private ItemProvider render(QuestStatus status, int progress) {
+                Material material = switch (status) {
+                    case COMPLETED -> Material.EMERALD_BLOCK;
+                    case IN_PROGRESS -> Material.DIAMOND_SWORD;
+                    case LOCKED -> Material.BARRIER;
+                    default -> Material.BOOK;
+                };
+
+                List<String> lore = new ArrayList<>(baseLore);
+                lore.add(ChatColor.WHITE + "Status: " + status.getDisplayName());
+                if (status == QuestStatus.IN_PROGRESS) {
+                    lore.add(String.format(ChatColor.WHITE + "Progress: " + ChatColor.YELLOW + "%d / %d", progress, quest.getRequiredAmount()));
+                }
+                lore.add(" ");
+                if (status == QuestStatus.AVAILABLE) {
+                    lore.add(ChatColor.GREEN + "Click to start this quest!");
+                } else if (status == QuestStatus.LOCKED && !requires.isEmpty()) {
+                    lore.add(ChatColor.RED + "Requires: " + ChatColor.GRAY + requires);
+                }
+
+                return new ItemWrapper(new ItemBuilder(material).setDisplayName(ChatColor.GOLD + quest.getName()).setLore(lore).get());
+            }
+        }
+    }
+
+    public static class LeaderboardService {
+        private static final int SIZE = 28;
+
+        private final QuestSystem plugin;
+        private final Map<UUID, String> names = new ConcurrentHashMap<>();
+        private final long refreshTicks;
+        private volatile List<LeaderboardEntry> snapshot = List.of();
+        private BukkitTask refreshTask;
+
+        public LeaderboardService(QuestSystem plugin) {
+            this.plugin = plugin;
+            this.refreshTicks = plugin.getConfig().getLong("leaderboard.refresh-minutes", 10L) * 60L * 20L;
+        }
+
+        public CompletableFuture<Void> start() {
+            if (refreshTicks > 0) {
+                refreshTask = Bukkit.getScheduler().runTaskTimer(plugin, this::refresh, refreshTicks, refreshTicks);
+            }
+            return refresh();
+        }
+
+        public void stop() {
+            if (refreshTask != null) {
+                refreshTask.cancel();
+            }
+        }
+
+        public List<LeaderboardEntry> getSnapshot() {
+            return snapshot;
+        }
+
+        public void rememberName(Player player) {
+            UUID playerUUID = player.getUniqueId();
+            String name = player.getName();
+            if (name.equals(names.put(playerUUID, name))) return;
+
+            plugin.getDatabaseExecutor().persist(DatabaseExecutor.Priority.LOW, () -> {
+                long started = plugin.getMetrics().startTimer();
+                try (Connection conn = plugin.getDatabaseManager().getConnection();
+                     PreparedStatement ps = conn.prepareStatement(plugin.getDatabaseManager().getDialect().upsertPlayerNameSql())) {
+                    ps.setString(1, playerUUID.toString());
+                    ps.setString(2, name);
+                    ps.executeUpdate();
+                } catch (SQLException e) {
+                    throw new CompletionException(e);
+                } finally {
+                    plugin.getMetrics().recordQuery(QuestMetrics.Query.SAVE_NAME, started, 1);
+                }
+            }).whenComplete((ignored, error) -> {
+                if (error != null) {
+                    plugin.getLogger().warning("Could not store the name of " + name + "; retrying on next join: " + error.getMessage());
+                    names.remove(playerUUID, name);
+                }
+            });
+        }
+
+        public synchronized void recordCompletion(Player player, int completedQuests) {
+            names.put(player.getUniqueId(), player.getName());
+            List<LeaderboardEntry> current = snapshot;
+            if (current.size() >= SIZE && completedQuests < current.get(current.size() - 1).completedQuests()
+                    && current.stream().noneMatch(entry -> entry.playerUUID().equals(player.getUniqueId()))) {
+                return;
+            }
+
+            List<LeaderboardEntry> updated = new ArrayList<>(current.size() + 1);
+            for (LeaderboardEntry entry : current) {
+                if (!entry.playerUUID().equals(player.getUniqueId())) {
+                    updated.add(entry);
+                }
+            }
+            updated.add(new LeaderboardEntry(player.getUniqueId(), player.getName(), completedQuests));
+            publish(updated);
+        }
+
+        private synchronized void publish(List<LeaderboardEntry> entries) {
+            entries.sort(Comparator.comparingInt(LeaderboardEntry::completedQuests).reversed());
+            snapshot = List.copyOf(entries.size() > SIZE ? entries.subList(0, SIZE) : entries);
+        }
+
+        private synchronized void merge(List<LeaderboardEntry> loaded) {
+            Map<UUID, LeaderboardEntry> merged = new HashMap<>();
+            for (LeaderboardEntry entry : loaded) {
+                merged.put(entry.playerUUID(), entry);
+            }
+            for (LeaderboardEntry entry : snapshot) {
+                merged.merge(entry.playerUUID(), entry,
+                        (fromDatabase, inMemory) -> inMemory.completedQuests() > fromDatabase.completedQuests() ? inMemory : fromDatabase);
+            }
+            publish(new ArrayList<>(merged.values()));
+        }
+
+        private CompletableFuture<Void> refresh() {
+            return plugin.getDatabaseExecutor().supply(DatabaseExecutor.Priority.LOW, this::loadTopPlayers)
+                    .handle((entries, error) -> {
+                        if (error != null) {
+                            plugin.getLogger().warning("Could not refresh the quest leaderboard: " + error.getMessage());
+                        } else {
+                            merge(entries);
+                        }
+                        return null;
+                    });
+        }
+
+        private List<LeaderboardEntry> loadTopPlayers() {
+            List<LeaderboardEntry> entries = new ArrayList<>();
+            String sql = "SELECT c.player_uuid, n.name, c.completed_count AS completed_quests " +
+                    "FROM player_completed_quests c " +
+                    "LEFT JOIN player_names n ON n.player_uuid = c.player_uuid " +
+                    "ORDER BY c.completed_count DESC LIMIT " + SIZE;
+
+            long started = plugin.getMetrics().startTimer();
+            try (Connection conn = plugin.getDatabaseManager().getConnection();
+                 PreparedStatement ps = conn.prepareStatement(sql);
+                 ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    UUID playerUUID = UUID.fromString(rs.getString("player_uuid"));
+                    String name = rs.getString("name");
+                    if (name == null) {
+                        name = names.get(playerUUID);
+                    }
+                    if (name == null) continue;
+                    names.putIfAbsent(playerUUID, name);
+                    entries.add(new LeaderboardEntry(playerUUID, name, rs.getInt("completed_quests")));
+                }
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            } finally {
+                plugin.getMetrics().recordQuery(QuestMetrics.Query.LEADERBOARD, started, entries.size());
+            }
+            return entries;
+        }
+
+        public record LeaderboardEntry(UUID playerUUID, String name, int completedQuests) {
+        }
+    }
+
+    public static class LeaderboardGUI {
+        private final QuestSystem plugin;
+        private List<LeaderboardService.LeaderboardEntry> renderedSnapshot;
+        private List<Item> renderedItems = List.of();
+
+        public LeaderboardGUI(QuestSystem plugin) {
+            this.plugin = plugin;
+        }
+
+        public void openLeaderboard(Player player) {
+            Gui gui = PagedGui.items()
+                    .setStructure(QuestGUI.STRUCTURE)
+                    .addIngredient('#', QuestGUI.BORDER)
+                    .addIngredient('<', xyz.xenondevs.invui.item.impl.controlitem.PageItem.previous.get())
+                    .addIngredient('>', xyz.xenondevs.invui.item.impl.controlitem.PageItem.next.get())
+                    .setContent(getLeaderboardData())
+                    .build();
+            Window.single().setViewer(player).setTitle(ChatColor.AQUA + "Global Quest Leaderboard").setGui(gui).open();
+        }
+
+        List<Item> getLeaderboardData() {
+            List<LeaderboardService.LeaderboardEntry> snapshot = plugin.getLeaderboardService().getSnapshot();
+            if (snapshot == renderedSnapshot) {
+                return renderedItems;
+            }
+
+            List<Item> items = new ArrayList<>();
+            int rank = 1;
+            for (LeaderboardService.LeaderboardEntry entry : snapshot) {
+                Material material;
+                switch (rank) {
+                    case 1:
+                        material = Material.DIAMOND;
+                        break;
+                    case 2:
+                        material = Material.GOLD_INGOT;
+                        break;
+                    case 3:
+                        material = Material.IRON_INGOT;
+                        break;
+                    default:
+                        material = Material.STONE;
+                        break;
+                }
+
+                ItemBuilder itemBuilder = new ItemBuilder(material);
+                itemBuilder.setDisplayName(ChatColor.YELLOW.toString() + rank + ". " + ChatColor.AQUA + entry.name());
+
+                List<String> lore = new ArrayList<>();
+                lore.add(ChatColor.GRAY + "Completed Quests: " + ChatColor.WHITE + entry.completedQuests());
+                itemBuilder.setLore(lore);
+
+                items.add(new SimpleItem(itemBuilder.get()));
+                rank++;
+            }
+            renderedItems = List.copyOf(items);
+            renderedSnapshot = snapshot;
+            return renderedItems;
+        }
+    }
+
+    public static class RewardService {
+        private static final int RELEASE_ATTEMPTS = 5;
+        private static final long RELEASE_RETRY_MILLIS = 500L;
+
+        private final QuestSystem plugin;
+        private final ArrayDeque<RewardClaim> deliveries = new ArrayDeque<>();
+        private final Set<RewardClaim> queued = new HashSet<>();
+        private final Set<RewardClaim> awaitingDelivery = ConcurrentHashMap.newKeySet();
+        private volatile Map<String, RewardTemplate> templates = Map.of();
+        private volatile boolean stopped;
+        private int deliveriesPerTick;
+        private String moneyCommand;
+        private BukkitTask task;
+
+        public RewardService(QuestSystem plugin) {
+            this.plugin = plugin;
+            loadTemplates();
+        }
+
+        public void loadTemplates() {
+            FileConfiguration config = plugin.getConfig();
+            deliveriesPerTick = Math.max(1, config.getInt("reward-delivery.per-tick", 5));
+            moneyCommand = config.getString("reward-delivery.money-command", "");
+
+            Map<String, RewardTemplate> parsed = new HashMap<>();
+            ConfigurationSection section = config.getConfigurationSection("rewards");
+            if (section != null) {
+                for (String questKey : section.getKeys(false)) {
+                    ConfigurationSection spec = section.getConfigurationSection(questKey);
+                    if (spec == null) continue;
+                    RewardTemplate template = RewardTemplate.parse(questKey, spec, plugin);
+                    if (template.getMoney() != null && moneyCommand.isEmpty()) {
+                        plugin.getLogger().warning("Reward " + questKey + " pays money but reward-delivery.money-command is not set.");
+                    }
+                    parsed.put(questKey, template);
+                }
+            }
+            templates = Map.copyOf(parsed);
+            plugin.getLogger().info("Loaded " + parsed.size() + " quest reward(s).");
+        }
+
+        public void start() {
+            if (task == null) {
+                task = Bukkit.getScheduler().runTaskTimer(plugin, this::tick, 1L, 1L);
+            }
+        }
+
+        public void stop() {
+            stopped = true;
+            if (task != null) {
+                task.cancel();
+                task = null;
+            }
+            deliveries.clear();
+            queued.clear();
+            for (RewardClaim claim : List.copyOf(awaitingDelivery)) {
+                if (awaitingDelivery.remove(claim)) {
+                    release(claim);
+                }
+            }
+        }
+
+        public RewardTemplate getTemplate(Quest quest) {
+            return quest.getKey() == null ? null : templates.get(quest.getKey());
+        }
+
+        public void grant(Player player, Quest quest) {
+            if (getTemplate(quest) == null) return;
+            // The claim row is written by the progress flush in the same transaction as the completion, so it is
+            // journaled and retried with it. Flush this player on the next tick, once the completion is marked dirty.
+            UUID playerUUID = player.getUniqueId();
+            Bukkit.getScheduler().runTask(plugin, () -> plugin.getProgressWriteBehind().flushPlayer(playerUUID)
+                    .exceptionally(error -> null));
+        }
+
+        List<RewardClaim> recordClaims(Connection conn, Collection<PlayerQuestData> entries) throws SQLException {
+            List<RewardClaim> claims = new ArrayList<>();
+            QuestManager questManager = plugin.getQuestManager();
+            for (PlayerQuestData data : entries) {
+                if (data.getStatus() != QuestStatus.COMPLETED) continue;
+                Quest quest = questManager == null ? null : questManager.getQuestById(data.getQuestId());
+                if (quest != null && getTemplate(quest) != null) {
+                    claims.add(new RewardClaim(data.getPlayerUUID(), data.getQuestId(), data.getResetEpoch()));
+                }
+            }
+            if (claims.isEmpty()) return claims;
+
+            long started = plugin.getMetrics().startTimer();
+            try (PreparedStatement ps = conn.prepareStatement(plugin.getDatabaseManager().getDialect().insertRewardClaimSql())) {
+                for (RewardClaim claim : claims) {
+                    ps.setString(1, claim.playerUUID().toString());
+                    ps.setInt(2, claim.questId());
+                    ps.setInt(3, claim.resetEpoch());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            } finally {
+                plugin.getMetrics().recordQuery(QuestMetrics.Query.REWARD_CLAIMS, started, claims.size());
+            }
+            return claims;
+        }
+
+        void claimsRecorded(List<RewardClaim> claims) {
+            if (claims.isEmpty() || stopped || !plugin.isEnabled()) return;
+            Bukkit.getScheduler().runTask(plugin, () -> claims.forEach(this::enqueue));
+        }
+
+        public void loadPending(Player player) {
+            UUID playerUUID = player.getUniqueId();
+            plugin.getDatabaseExecutor().run(DatabaseExecutor.Priority.LOW, () -> {
+                List<RewardClaim> pending = new ArrayList<>();
+                long started = plugin.getMetrics().startTimer();
+                try (Connection conn = plugin.getDatabaseManager().getConnection();
+                     PreparedStatement ps = conn.prepareStatement("SELECT quest_id, reset_epoch FROM quest_reward_claims WHERE player_uuid = ? AND claimed = FALSE")) {
+                    ps.setString(1, playerUUID.toString());
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            pending.add(new RewardClaim(playerUUID, rs.getInt(1), rs.getInt(2)));
+                        }
+                    }
+                } catch (SQLException e) {
+                    plugin.getLogger().warning("Could not load pending rewards for " + playerUUID + ": " + e.getMessage());
+                    return;
+                } finally {
+                    plugin.getMetrics().recordQuery(QuestMetrics.Query.REWARD_CLAIMS, started, pending.size());
+                }
+                if (!pending.isEmpty()) {
+                    Bukkit.getScheduler().runTask(plugin, () -> pending.forEach(this::enqueue));
+                }
+            });
+        }
+
+        public int getPendingDeliveries() {
+            return deliveries.size();
+        }
+
+        private void enqueue(RewardClaim claim) {
+            if (queued.add(claim)) {
+                deliveries.add(claim);
+            }
+        }
+
+        private void tick() {
+            for (int budget = deliveriesPerTick; budget > 0 && !deliveries.isEmpty(); budget--) {
+                RewardClaim claim = deliveries.poll();
+                Quest quest = plugin.getQuestManager().getQuestById(claim.questId());
+                if (Bukkit.getPlayer(claim.playerUUID()) == null || quest == null || getTemplate(quest) == null) {
+                    queued.remove(claim);
+                    continue;
+                }
+                claim(claim);
+            }
+        }
+
+        /**
+         * Marks the claim in the database before paying it out, so a reward is never paid twice. Delivery is
+         * at-most-once: a crash between the claim and the payout loses that reward, while a clean shutdown or a
+         * player leaving hands the claim back for their next join.
+         */
+        private void claim(RewardClaim claim) {
+            plugin.getDatabaseExecutor().supply(DatabaseExecutor.Priority.NORMAL, () -> {
+                long started = plugin.getMetrics().startTimer();
+                try (Connection conn = plugin.getDatabaseManager().getConnection();
+                     PreparedStatement ps = conn.prepareStatement(
+                             "UPDATE quest_reward_claims SET claimed = TRUE, claimed_at = ? WHERE player_uuid = ? AND quest_id = ? AND reset_epoch = ? AND claimed = FALSE")) {
+                    ps.setTimestamp(1, new Timestamp(System.currentTimeMillis()));
+                    ps.setString(2, claim.playerUUID().toString());
+                    ps.setInt(3, claim.questId());
+                    ps.setInt(4, claim.resetEpoch());
+                    return ps.executeUpdate() == 1;
+                } catch (SQLException e) {
+                    throw new CompletionException(e);
+                } finally {
+                    plugin.getMetrics().recordQuery(QuestMetrics.Query.REWARD_CLAIMS, started, 1);
+                }
+            }).whenComplete((claimed, error) -> {
+                if (Boolean.TRUE.equals(claimed)) {
+                    awaitingDelivery.add(claim);
+                }
+                try {
+                    if (stopped) throw new IllegalPluginAccessException("Reward delivery has stopped");
+                    Bukkit.getScheduler().runTask(plugin, () -> deliverClaimed(claim, claimed, error));
+                } catch (IllegalPluginAccessException e) {
+                    // Shutting down: the delivery task would never run, so hand the claim back instead of losing it.
+                    if (awaitingDelivery.remove(claim)) {
+                        unclaim(claim);
+                    }
+                }
+            });
+        }
+
+        private void deliverClaimed(RewardClaim claim, Boolean claimed, Throwable error) {
+            queued.remove(claim);
+            if (error != null) {
+                plugin.getLogger().warning("Could not claim the reward for quest " + claim.questId() + " of " + claim.playerUUID()
+                        + "; it stays pending: " + error.getMessage());
+                return;
+            }
+            if (!claimed || !awaitingDelivery.remove(claim)) return;
+
+            Player player = Bukkit.getPlayer(claim.playerUUID());
+            Quest quest = plugin.getQuestManager().getQuestById(claim.questId());
+            RewardTemplate template = quest == null ? null : getTemplate(quest);
+            if (player == null || template == null) {
+                release(claim);
+                return;
+            }
+            deliver(player, template);
+            player.sendMessage(ChatColor.GOLD + "You received the rewards for " + quest.getName() + ".");
+        }
+
+        private void release(RewardClaim claim) {
+            plugin.getDatabaseExecutor().persist(DatabaseExecutor.Priority.NORMAL, () -> unclaim(claim));
+        }
+
+        private void unclaim(RewardClaim claim) {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    releaseClaim(claim);
+                    return;
+                } catch (SQLException e) {
+                    if (attempt >= RELEASE_ATTEMPTS) {
+                        plugin.getLogger().severe("Could not release the undelivered reward for quest " + claim.questId() + " of " + claim.playerUUID()
+                                + " after " + attempt + " attempts; it stays marked as claimed.");
+                        e.printStackTrace();
+                        return;
+                    }
+                    plugin.getLogger().warning("Could not release the undelivered reward for quest " + claim.questId() + " of " + claim.playerUUID()
+                            + "; retrying: " + e.getMessage());
+                    try {
+                        Thread.sleep(RELEASE_RETRY_MILLIS * attempt);
+                    } catch (InterruptedException interrupted) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        }
+
+        private void releaseClaim(RewardClaim claim) throws SQLException {
+            long started = plugin.getMetrics().startTimer();
+            try (Connection conn = plugin.getDatabaseManager().getConnection();
+                 PreparedStatement ps = conn.prepareStatement(
+                         "UPDATE quest_reward_claims SET claimed = FALSE, claimed_at = NULL WHERE player_uuid = ? AND quest_id = ? AND reset_epoch = ? AND claimed = TRUE")) {
+                ps.setString(1, claim.playerUUID().toString());
+                ps.setInt(2, claim.questId());
+                ps.setInt(3, claim.resetEpoch());
+                ps.executeUpdate();
+            } finally {
+                plugin.getMetrics().recordQuery(QuestMetrics.Query.REWARD_CLAIMS, started, 1);
+            }
+        }
+
+        private void deliver(Player player, RewardTemplate template) {
+            if (template.getMoney() != null && !moneyCommand.isEmpty()) {
+                Bukkit.dispatchCommand(Bukkit.getConsoleSender(), moneyCommand
+                        .replace("{player}", player.getName())
+                        .replace("{amount}", template.getMoney()));
+            }
+            if (template.getExperience() > 0) {
+                player.giveExp(template.getExperience());
+            }
+            for (ItemStack prototype : template.getItems()) {
+                for (ItemStack leftover : player.getInventory().addItem(prototype.clone()).values()) {
+                    player.getWorld().dropItemNaturally(player.getLocation(), leftover);
+                }
+            }
+        }
+
+        private record RewardClaim(UUID playerUUID, int questId, int resetEpoch) {
+        }
+    }
+
+    public static class QuestCommand implements CommandExecutor {
+        private final QuestSystem plugin;
+        private final QuestGUI questGUI;
+        private final LeaderboardGUI leaderboardGUI;
+
+        public QuestCommand(QuestSystem plugin) {
+            this.plugin = plugin;
+            this.questGUI = plugin.getQuestGUI();
+            this.leaderboardGUI = new LeaderboardGUI(plugin);
+        }
+
+        @Override
+        public boolean onCommand(CommandSender sender, Command cmd, String label, String[] args) {
+            if (!plugin.getStartup().isReady()) {
+                sender.sendMessage(ChatColor.YELLOW + "Quests are still loading, your command will run once they are ready.");
+                plugin.getStartup().whenReady(() -> {
+                    if (!(sender instanceof Player player) || player.isOnline()) {
+                        onCommand(sender, cmd, label, args);
+                    }
+                });
+                return true;
+            }
+
+            if (args.length > 0 && args[0].equalsIgnoreCase("reload")) {
+                if (!sender.hasPermission("questsystem.admin")) {
+                    sender.sendMessage(ChatColor.RED + "You do not have permission to do that.");
+                    return true;
+                }
+                plugin.reloadConfig();
+                plugin.getRewardService().loadTemplates();
+                plugin.getQuestManager().reloadQuests(args.length > 1 && args[1].equalsIgnoreCase("full"))
+                        .whenComplete((changed, error) -> Bukkit.getScheduler().runTask(plugin, () -> {
+                            if (error != null) {
+                                sender.sendMessage(ChatColor.RED + "Quest reload failed, see the console for details.");
+                            } else if (changed) {
+                                sender.sendMessage(ChatColor.GREEN + "Quests reloaded (registry v" + plugin.getQuestManager().getRegistryVersion() + ").");
+                            } else {
+                                sender.sendMessage(ChatColor.YELLOW + "No quest changes found.");
+                            }
+                        }));
+                return true;
+            }
+
+            if (args.length > 0 && args[0].equalsIgnoreCase("stats")) {
+                if (!sender.hasPermission("questsystem.admin")) {
+                    sender.sendMessage(ChatColor.RED + "You do not have permission to do that.");
+                    return true;
+                }
+                plugin.getMetrics().describe().forEach(sender::sendMessage);
+                return true;
+            }
+
+            if (!(sender instanceof Player)) {
+                sender.sendMessage(ChatColor.RED + "This command can only be used by players.");
+                return true;
+            }
+
+            Player player = (Player) sender;
+
+            if (args.length > 0 && args[0].equalsIgnoreCase("leaderboard")) {
+                leaderboardGUI.openLeaderboard(player);
+            } else {
+                questGUI.openQuestList(player);
+            }
+
+            return true;
+        }
+    }
+
+    public static final class ResetClock {
+        private final ZoneId zone;
+        private final DayOfWeek weekStart;
+        private volatile Epochs current;
+
+        public ResetClock(ZoneId zone, DayOfWeek weekStart) {
+            this.zone = zone;
+            this.weekStart = weekStart;
+            this.current = compute();
+        }
+
+        public static ResetClock fromConfig(QuestSystem plugin) {
+            FileConfiguration config = plugin.getConfig();
+            ZoneId zone = ZoneId.systemDefault();
+            DayOfWeek weekStart = DayOfWeek.MONDAY;
+            try {
+                String timezone = config.getString("repeatables.timezone", "");
+                if (!timezone.isEmpty()) {
+                    zone = ZoneId.of(timezone);
+                }
+                weekStart = DayOfWeek.valueOf(config.getString("repeatables.week-start", "MONDAY").toUpperCase(Locale.ROOT));
+            } catch (RuntimeException e) {
+                plugin.getLogger().warning("Invalid repeatables settings, using " + zone + " and weeks starting on " + weekStart + ": " + e.getMessage());
+            }
+            return new ResetClock(zone, weekStart);
+        }
+
+        public int epoch(ResetPeriod period) {
+            Epochs epochs = current;
+            if (System.currentTimeMillis() >= epochs.validUntil()) {
+                epochs = compute();
+                current = epochs;
+            }
+            return switch (period) {
+                case NONE -> 0;
+                case DAILY -> epochs.day();
+                case WEEKLY -> epochs.week();
+            };
+        }
+
+        private Epochs compute() {
+            LocalDate today = LocalDate.now(zone);
+            long day = today.toEpochDay();
+            int shift = Math.floorMod(DayOfWeek.THURSDAY.getValue() - weekStart.getValue(), 7);
+            long validUntil = today.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+            return new Epochs((int) day, (int) Math.floorDiv(day + shift, 7), validUntil);
+        }
+
+        private record Epochs(int day, int week, long validUntil) {
+        }
+    }
+
+    public static class ResetCompactor {
+        private final QuestSystem plugin;
+        private final AtomicBoolean running = new AtomicBoolean();
+        private final boolean enabled;
+        private final int batchSize;
+        private final long intervalTicks;
+        private BukkitTask task;
+
+        public ResetCompactor(QuestSystem plugin) {
+            this.plugin = plugin;
+            FileConfiguration config = plugin.getConfig();
+            this.enabled = config.getBoolean("repeatables.compaction.enabled", true);
+            this.batchSize = Math.max(1, config.getInt("repeatables.compaction.batch-size", 500));
+            this.intervalTicks = Math.max(0L, config.getLong("repeatables.compaction.interval-minutes", 30L) * 60L * 20L);
+        }
+
+        public void start() {
+            if (enabled && intervalTicks > 0 && task == null) {
+                task = Bukkit.getScheduler().runTaskTimer(plugin, this::compact, intervalTicks, intervalTicks);
+            }
+        }
+
+        public void stop() {
+            if (task != null) {
+                task.cancel();
+                task = null;
+            }
+        }
+
+        public void compact() {
+            Quest[] repeatables = plugin.getQuestManager().getRegistry().getRepeatables();
+            if (repeatables.length == 0 || !running.compareAndSet(false, true)) return;
+            int[][] targets = new int[repeatables.length * 2][];
+            for (int i = 0; i < repeatables.length; i++) {
+                int epoch = plugin.getQuestManager().getResetEpoch(repeatables[i]);
+                targets[i * 2] = new int[]{repeatables[i].getId(), epoch, 0};
+                targets[i * 2 + 1] = new int[]{repeatables[i].getId(), epoch, 1};
+            }
+            compactBatch(targets, 0, 0);
+        }
+
+        private void compactBatch(int[][] targets, int position, int total) {
+            if (position >= targets.length) {
+                running.set(false);
+                if (total > 0) {
+                    plugin.getLogger().info("Pruned " + total + " expired repeatable quest progress and claimed reward rows.");
+                }
+                return;
+            }
+            plugin.getDatabaseExecutor().supply(DatabaseExecutor.Priority.LOW, () -> {
+                long started = plugin.getMetrics().startTimer();
+                int deleted = 0;
+                SqlDialect dialect = plugin.getDatabaseManager().getDialect();
+                try (Connection conn = plugin.getDatabaseManager().getConnection();
+                     PreparedStatement ps = conn.prepareStatement(targets[position][2] == 0
+                             ? dialect.deleteExpiredProgressSql() : dialect.deleteExpiredClaimsSql())) {
+                    ps.setInt(1, targets[position][0]);
+                    ps.setInt(2, targets[position][1]);
+                    ps.setInt(3, batchSize);
+                    deleted = ps.executeUpdate();
+                } catch (SQLException e) {
+                    plugin.getLogger().warning("Could not prune expired rows of quest " + targets[position][0] + ": " + e.getMessage());
+                    deleted = -1;
+                } finally {
+                    plugin.getMetrics().recordQuery(QuestMetrics.Query.COMPACT_PROGRESS, started, Math.max(0, deleted));
+                }
+                return deleted;
+            }).whenComplete((deleted, error) -> {
+                if (error != null) {
+                    plugin.getLogger().warning("Repeatable quest compaction stopped early: " + error.getMessage());
+                }
+                if (error != null || deleted < 0) {
+                    running.set(false);
+                } else if (deleted >= batchSize) {
+                    compactBatch(targets, position, total + deleted);
+                } else {
+                    compactBatch(targets, position + 1, total + deleted);
+                }
+            });
+        }
+    }
+
+    public static class InventoryTracker {
+        private final QuestSystem plugin;
+        private final Set<UUID> pending = new LinkedHashSet<>();
+        private final ArrayDeque<UUID> sweep = new ArrayDeque<>();
+        private final int playersPerTick;
+        private final long sweepIntervalTicks;
+        private long ticks;
+        private long nextSweepTick;
+        private BukkitTask task;
+
+        public InventoryTracker(QuestSystem plugin) {
+            this.plugin = plugin;
+            FileConfiguration config = plugin.getConfig();
+            this.playersPerTick = Math.max(1, config.getInt("gather.reconcile-players-per-tick", 4));
+            this.sweepIntervalTicks = Math.max(20L, config.getLong("gather.reconcile-interval-seconds", 30L) * 20L);
+        }
+
+        public void start() {
+            if (task == null) {
+                task = Bukkit.getScheduler().runTaskTimer(plugin, this::tick, 1L, 1L);
+            }
+        }
+
+        public void stop() {
+            if (task != null) {
+                task.cancel();
+                task = null;
+            }
+        }
+
+        public void markDirty(Player player) {
+            if (plugin.getQuestManager().getRegistry().getObjectives().hasType(QuestType.GATHER_ITEMS)) {
+                pending.add(player.getUniqueId());
+            }
+        }
+
+        private void tick() {
+            ticks++;
+            QuestManager questManager = plugin.getQuestManager();
+            int budget = playersPerTick;
+            List<UUID> stillLoading = null;
+            Iterator<UUID> iterator = pending.iterator();
+            while (budget > 0 && iterator.hasNext()) {
+                UUID playerUUID = iterator.next();
+                iterator.remove();
+                Player player = Bukkit.getPlayer(playerUUID);
+                if (player == null) continue;
+                if (questManager.reconcileInventory(player)) {
+                    budget--;
+                } else {
+                    if (stillLoading == null) stillLoading = new ArrayList<>();
+                    stillLoading.add(playerUUID);
+                }
+            }
+            if (stillLoading != null) {
+                pending.addAll(stillLoading);
+            }
+
+            if (sweep.isEmpty() && ticks >= nextSweepTick) {
+                nextSweepTick = ticks + sweepIntervalTicks;
+                if (questManager.getRegistry().getObjectives().hasType(QuestType.GATHER_ITEMS)) {
+                    for (Player player : Bukkit.getOnlinePlayers()) {
+                        if (questManager.hasObjectives(player.getUniqueId(), QuestType.GATHER_ITEMS)) {
+                            sweep.add(player.getUniqueId());
+                        }
+                    }
+                }
+            }
+            while (budget > 0 && !sweep.isEmpty()) {
+                Player player = Bukkit.getPlayer(sweep.poll());
+                if (player != null && questManager.reconcileInventory(player)) {
+                    budget--;
+                }
+            }
+        }
+    }
+
+    public static class ProgressNotifier {
+        public enum Display {
+            ACTION_BAR, BOSS_BAR, CHAT, NONE
+        }
+
+        private final QuestSystem plugin;
+        private final Display display;
+        private final long intervalTicks;
+        private final long bossBarTicks;
+        private final int maxQuests;
+        private final Map<UUID, PendingProgress> players = new HashMap<>();
+        private final Set<UUID> queued = new LinkedHashSet<>();
+        private final StringBuilder line = new StringBuilder(128);
+        private long ticks;
+        private BukkitTask task;
+
+        public ProgressNotifier(QuestSystem plugin) {
+            this.plugin = plugin;
+            FileConfiguration config = plugin.getConfig();
+            Display configured;
+            try {
+                configured = Display.valueOf(config.getString("notifications.progress.display", "ACTION_BAR").toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                plugin.getLogger().warning("Unknown notifications.progress.display, falling back to ACTION_BAR.");
+                configured = Display.ACTION_BAR;
+            }
+            this.display = configured;
+            this.intervalTicks = Math.max(1L, config.getLong("notifications.progress.interval-ticks", 10L));
+            this.bossBarTicks = Math.max(intervalTicks, config.getLong("notifications.progress.boss-bar-seconds", 3L) * 20L);
+            this.maxQuests = Math.max(1, config.getInt("notifications.progress.max-quests", 3));
+        }
+
+        public void start() {
+            if (task == null && display != Display.NONE) {
+                task = Bukkit.getScheduler().runTaskTimer(plugin, this::tick, 1L, 1L);
+            }
+        }
+
+        public void stop() {
+            if (task != null) {
+                task.cancel();
+                task = null;
+            }
+            for (PendingProgress pending : players.values()) {
+                if (pending.bossBar != null) pending.bossBar.removeAll();
+            }
+            players.clear();
+            queued.clear();
+        }
+
+        public void progress(Player player, Quest quest, int progress) {
+            if (display == Display.NONE) return;
+            players.computeIfAbsent(player.getUniqueId(), ignored -> new PendingProgress()).put(quest, progress);
+            queued.add(player.getUniqueId());
+        }
+
+        public void completed(Player player, Quest quest) {
+            PendingProgress pending = players.get(player.getUniqueId());
+            if (pending != null) {
+                pending.remove(quest);
+            }
+        }
+
+        public void forget(Player player) {
+            PendingProgress pending = players.remove(player.getUniqueId());
+            queued.remove(player.getUniqueId());
+            if (pending != null && pending.bossBar != null) {
+                pending.bossBar.removeAll();
+            }
+        }
+
+        private void tick() {
+            ticks++;
+            Iterator<UUID> iterator = queued.iterator();
+            while (iterator.hasNext()) {
+                UUID playerUUID = iterator.next();
+                PendingProgress pending = players.get(playerUUID);
+                if (pending == null) {
+                    iterator.remove();
+                    continue;
+                }
+                if (ticks < pending.nextSendTick) continue;
+                iterator.remove();
+                Player player = Bukkit.getPlayer(playerUUID);
+                if (player == null || pending.size == 0) {
+                    pending.clear();
+                    continue;
+                }
+                send(player, pending);
+                pending.nextSendTick = ticks + intervalTicks;
+                pending.hideTick = ticks + bossBarTicks;
+                pending.clear();
+            }
+
+            if (display == Display.BOSS_BAR) {
+                for (PendingProgress pending : players.values()) {
+                    if (pending.bossBar != null && pending.hideTick != 0 && ticks >= pending.hideTick) {
+                        pending.bossBar.setVisible(false);
+                        pending.hideTick = 0;
+                    }
+                }
+            }
+        }
+
+        private void send(Player player, PendingProgress pending) {
+            line.setLength(0);
+            int shown = Math.min(pending.size, maxQuests);
+            for (int i = 0; i < shown; i++) {
+                if (i > 0) line.append(ChatColor.GRAY).append(" | ");
+                Quest quest = pending.quests[i];
+                line.append(ChatColor.YELLOW).append(quest.getName()).append(": ")
+                        .append(pending.progress[i]).append('/').append(quest.getRequiredAmount());
+            }
+            if (pending.size > shown) {
+                line.append(ChatColor.GRAY).append(" +").append(pending.size - shown).append(" more");
+            }
+            String message = line.toString();
+
+            switch (display) {
+                case ACTION_BAR -> player.spigot().sendMessage(ChatMessageType.ACTION_BAR, new TextComponent(message));
+                case CHAT -> player.sendMessage(message);
+                case BOSS_BAR -> {
+                    if (pending.bossBar == null) {
+                        pending.bossBar = Bukkit.createBossBar(message, BarColor.YELLOW, BarStyle.SEGMENTED_10);
+                        pending.bossBar.addPlayer(player);
+                    }
+                    Quest first = pending.quests[0];
+                    pending.bossBar.setTitle(message);
+                    pending.bossBar.setProgress(Math.min(1.0, (double) pending.progress[0] / Math.max(1, first.getRequiredAmount())));
+                    pending.bossBar.setVisible(true);
+                }
+                default -> {
+                }
+            }
+        }
+
+        private static final class PendingProgress {
+            private Quest[] quests = new Quest[4];
+            private int[] progress = new int[4];
+            private int size;
+            private long nextSendTick;
+            private long hideTick;
+            private BossBar bossBar;
+
+            private void put(Quest quest, int value) {
+                for (int i = 0; i < size; i++) {
+                    if (quests[i] == quest) {
+                        progress[i] = value;
+                        return;
+                    }
+                }
+                if (size == quests.length) {
+                    quests = Arrays.copyOf(quests, size * 2);
+                    progress = Arrays.copyOf(progress, size * 2);
+                }
+                quests[size] = quest;
+                progress[size++] = value;
+            }
+
+            private void remove(Quest quest) {
+                for (int i = 0; i < size; i++) {
+                    if (quests[i] == quest) {
+                        System.arraycopy(quests, i + 1, quests, i, size - i - 1);
+                        System.arraycopy(progress, i + 1, progress, i, size - i - 1);
+                        quests[--size] = null;
+                        return;
+                    }
+                }
+            }
+
+            private void clear() {
+                Arrays.fill(quests, 0, size, null);
+                size = 0;
+            }
+        }
+    }
 
     public static class QuestListener implements Listener {
+        private final QuestSystem plugin;
         private final QuestManager questManager;
+        private final QuestMetrics metrics;
+        private final long preloginWaitMillis;
+        private final long startupWaitMillis;
 
         public QuestListener(QuestSystem plugin) {
+            this.plugin = plugin;
             this.questManager = plugin.getQuestManager();
+            this.metrics = plugin.getMetrics();
+            this.preloginWaitMillis = plugin.getConfig().getLong("sessions.prelogin-wait-millis", 3000L);
+            this.startupWaitMillis = Math.max(0L, plugin.getConfig().getLong("startup.login-wait-seconds", 30L) * 1000L);
+        }
+
+        @EventHandler(priority = EventPriority.LOW)
+        public void onAsyncPlayerPreLoginGate(AsyncPlayerPreLoginEvent event) {
+            StartupPipeline startup = plugin.getStartup();
+            if (startup.isReady() || event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) return;
+            if (!startup.awaitReady(startupWaitMillis)) {
+                event.disallow(AsyncPlayerPreLoginEvent.Result.KICK_OTHER, ChatColor.RED + "Quests are still loading, please try again in a moment.");
+            }
+        }
+
+        @EventHandler(priority = EventPriority.MONITOR)
+        public void onAsyncPlayerPreLogin(AsyncPlayerPreLoginEvent event) {
+            long started = metrics.startTimer(QuestMetrics.Handler.PRE_LOGIN);
+            try {
+                if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) return;
+                try {
+                    questManager.prefetchPlayerProgress(event.getUniqueId()).get(preloginWaitMillis, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    plugin.getLogger().warning("Quest progress for " + event.getName() + " is still loading; events will be replayed once it is ready.");
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException ignored) {
+                }
+            } finally {
+                metrics.recordHandler(QuestMetrics.Handler.PRE_LOGIN, started);
+            }
         }
 
         @EventHandler
         public void onPlayerJoin(PlayerJoinEvent event) {
-            questManager.loadPlayerProgress(event.getPlayer());
+            long started = metrics.startTimer(QuestMetrics.Handler.JOIN);
+            try {
+                Player player = event.getPlayer();
+                plugin.getStartup().whenReady(() -> {
+                    if (player.isOnline()) {
+                        handleJoin(player);
+                    }
+                });
+            } finally {
+                metrics.recordHandler(QuestMetrics.Handler.JOIN, started);
+            }
+        }
+
+        void handleJoin(Player player) {
+            questManager.loadPlayerProgress(player);
+            plugin.getInventoryTracker().markDirty(player);
+            plugin.getLeaderboardService().rememberName(player);
+            plugin.getRewardService().loadPending(player);
+        }
+
+        @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+        public void onPlayerMove(PlayerMoveEvent event) {
+            long started = metrics.startTimer(QuestMetrics.Handler.MOVE);
+            try {
+                Location from = event.getFrom();
+                Location to = event.getTo();
+                if (to == null) return;
+                if (from.getBlockX() == to.getBlockX() && from.getBlockY() == to.getBlockY()
+                        && from.getBlockZ() == to.getBlockZ() && from.getWorld() == to.getWorld()) {
+                    return;
+                }
+                questManager.handleMove(event.getPlayer(), to);
+            } finally {
+                metrics.recordHandler(QuestMetrics.Handler.MOVE, started);
+            }
+        }
+
+        @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+        public void onPlayerTeleport(PlayerTeleportEvent event) {
+            long started = metrics.startTimer(QuestMetrics.Handler.TELEPORT);
+            try {
+                Location to = event.getTo();
+                if (to != null) {
+                    questManager.handleMove(event.getPlayer(), to);
+                }
+            } finally {
+                metrics.recordHandler(QuestMetrics.Handler.TELEPORT, started);
+            }
+        }
+
+        @EventHandler
+        public void onPlayerChangedWorld(PlayerChangedWorldEvent event) {
+            long started = metrics.startTimer(QuestMetrics.Handler.CHANGE_WORLD);
+            try {
+                questManager.handleWorldEntered(event.getPlayer());
+            } finally {
+                metrics.recordHandler(QuestMetrics.Handler.CHANGE_WORLD, started);
+            }
         }
 
         @EventHandler
         public void onPlayerQuit(PlayerQuitEvent event) {
-            questManager.unloadPlayerProgress(event.getPlayer());
+            long started = metrics.startTimer(QuestMetrics.Handler.QUIT);
+            try {
+                questManager.unloadPlayerProgress(event.getPlayer());
+                plugin.getProgressNotifier().forget(event.getPlayer());
+                plugin.getQuestGUI().forget(event.getPlayer());
+            } finally {
+                metrics.recordHandler(QuestMetrics.Handler.QUIT, started);
+            }
+        }
+
+        @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+        public void onEntityPickupItem(EntityPickupItemEvent event) {
+            long started = metrics.startTimer(QuestMetrics.Handler.PICKUP);
+            try {
+                if (event.getEntity() instanceof Player player) {
+                    ItemStack item = event.getItem().getItemStack();
+                    questManager.adjustGatherProgress(player, item.getType(), item.getAmount() - event.getRemaining());
+                }
+            } finally {
+                metrics.recordHandler(QuestMetrics.Handler.PICKUP, started);
+            }
+        }
+
+        @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+        public void onPlayerDropItem(PlayerDropItemEvent event) {
+            long started = metrics.startTimer(QuestMetrics.Handler.DROP);
+            try {
+                ItemStack item = event.getItemDrop().getItemStack();
+                questManager.adjustGatherProgress(event.getPlayer(), item.getType(), -item.getAmount());
+            } finally {
+                metrics.recordHandler(QuestMetrics.Handler.DROP, started);
+            }
+        }
+
+        @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+        public void onCraftItem(CraftItemEvent event) {
+            long started = metrics.startTimer(QuestMetrics.Handler.CRAFT);
+            try {
+                if (!(event.getWhoClicked() instanceof Player player)) return;
+                if (!event.isShiftClick()) {
+                    ItemStack result = event.getRecipe().getResult();
+                    questManager.adjustGatherProgress(player, result.getType(), result.getAmount());
+                }
+                plugin.getInventoryTracker().markDirty(player);
+            } finally {
+                metrics.recordHandler(QuestMetrics.Handler.CRAFT, started);
+            }
+        }
+
+        @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+        public void onInventoryClick(InventoryClickEvent event) {
+            long started = metrics.startTimer(QuestMetrics.Handler.INVENTORY_CLICK);
+            try {
+                if (event.getWhoClicked() instanceof Player player
+                        && event.getView().getTopInventory().getType() != InventoryType.CRAFTING) {
+                    plugin.getInventoryTracker().markDirty(player);
+                }
+            } finally {
+                metrics.recordHandler(QuestMetrics.Handler.INVENTORY_CLICK, started);
+            }
+        }
+
+        @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+        public void onInventoryDrag(InventoryDragEvent event) {
+            long started = metrics.startTimer(QuestMetrics.Handler.INVENTORY_DRAG);
+            try {
+                if (event.getWhoClicked() instanceof Player player
+                        && event.getView().getTopInventory().getType() != InventoryType.CRAFTING) {
+                    plugin.getInventoryTracker().markDirty(player);
+                }
+            } finally {
+                metrics.recordHandler(QuestMetrics.Handler.INVENTORY_DRAG, started);
+            }
         }
 
         @EventHandler
         public void onEntityDeath(EntityDeathEvent event) {
-            if (event.getEntity().getKiller() != null && event.getEntity().getKiller() instanceof Player) {
-                questManager.incrementQuestProgress(event.getEntity().getKiller(), QuestType.KILL_MOBS, event.getEntityType().name());
+            long started = metrics.startTimer(QuestMetrics.Handler.ENTITY_DEATH);
+            try {
+                Player killer = event.getEntity().getKiller();
+                if (killer != null) {
+                    questManager.incrementQuestProgress(killer, QuestType.KILL_MOBS, event.getEntityType().ordinal());
+                }
+            } finally {
+                metrics.recordHandler(QuestMetrics.Handler.ENTITY_DEATH, started);
             }
         }
     }
 
     public static class Quest {
         private final int id;
+        private final int index;
+        private final String key;
         private final String name;
         private final List<String> description;
         private final QuestType type;
         private final String target;
+        private final int targetId;
+        private final LocationRegion region;
         private final int requiredAmount;
+        private final String category;
+        private final ResetPeriod resetPeriod;
 
-        public Quest(int id, String name, List<String> description, QuestType type, String target, int requiredAmount) {
+        public Quest(int id, int index, String key, String name, List<String> description, QuestType type, String target, int requiredAmount,
+                     String category, ResetPeriod resetPeriod) {
             this.id = id;
+            this.index = index;
+            this.key = key;
             this.name = name;
             this.description = description;
             this.type = type;
             this.target = target;
+            this.region = type == QuestType.REACH_LOCATION ? LocationRegion.parse(index, target) : null;
+            this.targetId = type == QuestType.REACH_LOCATION ? (region == null ? -1 : index) : ObjectiveIndex.targetId(type, target);
             this.requiredAmount = requiredAmount;
+            this.category = category;
+            this.resetPeriod = resetPeriod;
         }
 
         public int getId() {
             return id;
         }
 
+        public int getIndex() {
+            return index;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
         public String getName() {
             return name;
         }
@@ -535,22 +4992,430 @@ public final class QuestSystem extends JavaPlugin {
             return target;
         }
 
+        public int getTargetId() {
+            return targetId;
+        }
+
+        public LocationRegion getRegion() {
+            return region;
+        }
+
         public int getRequiredAmount() {
             return requiredAmount;
         }
+
+        public String getCategory() {
+            return category;
+        }
+
+        public ResetPeriod getResetPeriod() {
+            return resetPeriod;
+        }
+
+        public boolean isRepeatable() {
+            return resetPeriod != ResetPeriod.NONE;
+        }
+    }
+
+    public static final class RewardTemplate {
+        private final String questKey;
+        private final String money;
+        private final int experience;
+        private final ItemStack[] items;
+
+        private RewardTemplate(String questKey, String money, int experience, ItemStack[] items) {
+            this.questKey = questKey;
+            this.money = money;
+            this.experience = experience;
+            this.items = items;
+        }
+
+        public static RewardTemplate parse(String questKey, ConfigurationSection spec, QuestSystem plugin) {
+            double amount = spec.getDouble("money", 0.0);
+            String money = amount > 0 ? BigDecimal.valueOf(amount).stripTrailingZeros().toPlainString() : null;
+            List<ItemStack> items = new ArrayList<>();
+            for (String item : spec.getStringList("items")) {
+                String[] parts = item.split(":", 2);
+                Material material = Material.matchMaterial(parts[0].trim());
+                int count = 1;
+                if (parts.length > 1) {
+                    try {
+                        count = Integer.parseInt(parts[1].trim());
+                    } catch (NumberFormatException e) {
+                        count = 0;
+                    }
+                }
+                if (material == null || !material.isItem() || count <= 0) {
+                    plugin.getLogger().warning("Ignoring invalid reward item '" + item + "' for " + questKey + ".");
+                    continue;
+                }
+                items.add(new ItemStack(material, count));
+            }
+            return new RewardTemplate(questKey, money, Math.max(0, spec.getInt("experience", 0)), items.toArray(new ItemStack[0]));
+        }
+
+        public String getQuestKey() {
+            return questKey;
+        }
+
+        public String getMoney() {
+            return money;
+        }
+
+        public int getExperience() {
+            return experience;
+        }
+
+        public ItemStack[] getItems() {
+            return items.clone();
+        }
+    }
+
+    public static final class ObjectiveIndex {
+        public static final ObjectiveIndex EMPTY = new ObjectiveIndex(new int[0], new int[0][]);
+        private static final int[] NO_QUESTS = new int[0];
+
+        private final int[] keys;
+        private final int[][] questIndices;
+
+        private ObjectiveIndex(int[] keys, int[][] questIndices) {
+            this.keys = keys;
+            this.questIndices = questIndices;
+        }
+
+        public static int targetId(QuestType type, String target) {
+            if (target == null) return -1;
+            try {
+                switch (type) {
+                    case KILL_MOBS:
+                        return EntityType.valueOf(target.toUpperCase(Locale.ROOT)).ordinal();
+                    case GATHER_ITEMS:
+                        Material material = Material.matchMaterial(target);
+                        return material == null ? -1 : material.ordinal();
+                    default:
+                        return -1;
+                }
+            } catch (IllegalArgumentException e) {
+                return -1;
+            }
+        }
+
+        private static int key(QuestType type, int targetId) {
+            return (type.ordinal() << 24) | targetId;
+        }
+
+        public static ObjectiveIndex of(Collection<Quest> quests) {
+            SortedMap<Integer, List<Integer>> grouped = new TreeMap<>();
+            for (Quest quest : quests) {
+                if (quest.getTargetId() < 0) continue;
+                grouped.computeIfAbsent(key(quest.getType(), quest.getTargetId()), k -> new ArrayList<>()).add(quest.getIndex());
+            }
+            if (grouped.isEmpty()) return EMPTY;
+
+            int[] keys = new int[grouped.size()];
+            int[][] questIndices = new int[grouped.size()][];
+            int i = 0;
+            for (Map.Entry<Integer, List<Integer>> entry : grouped.entrySet()) {
+                keys[i] = entry.getKey();
+                questIndices[i] = entry.getValue().stream().mapToInt(Integer::intValue).toArray();
+                i++;
+            }
+            return new ObjectiveIndex(keys, questIndices);
+        }
+
+        public int[] get(QuestType type, int targetId) {
+            if (targetId < 0) return NO_QUESTS;
+            int i = Arrays.binarySearch(keys, key(type, targetId));
+            return i < 0 ? NO_QUESTS : questIndices[i];
+        }
+
+        public boolean contains(QuestType type, int targetId) {
+            return targetId >= 0 && Arrays.binarySearch(keys, key(type, targetId)) >= 0;
+        }
+
+        public boolean hasType(QuestType type) {
+            int from = firstOfType(type);
+            return from < keys.length && keys[from] >>> 24 == type.ordinal();
+        }
+
+        public int[] targetIds(QuestType type) {
+            int from = firstOfType(type);
+            int to = from;
+            while (to < keys.length && keys[to] >>> 24 == type.ordinal()) {
+                to++;
+            }
+            if (from == to) return NO_QUESTS;
+            int[] targetIds = new int[to - from];
+            for (int i = from; i < to; i++) {
+                targetIds[i - from] = keys[i] & 0xFFFFFF;
+            }
+            return targetIds;
+        }
+
+        private int firstOfType(QuestType type) {
+            int i = Arrays.binarySearch(keys, key(type, 0));
+            return i >= 0 ? i : -i - 1;
+        }
+
+        public ObjectiveIndex with(Quest quest) {
+            if (quest.getTargetId() < 0) return this;
+            int key = key(quest.getType(), quest.getTargetId());
+            int i = Arrays.binarySearch(keys, key);
+            if (i >= 0) {
+                int[] ids = questIndices[i];
+                for (int index : ids) {
+                    if (index == quest.getIndex()) return this;
+                }
+                int[][] newQuestIndices = questIndices.clone();
+                newQuestIndices[i] = Arrays.copyOf(ids, ids.length + 1);
+                newQuestIndices[i][ids.length] = quest.getIndex();
+                return new ObjectiveIndex(keys, newQuestIndices);
+            }
+            int insertAt = -i - 1;
+            int[] newKeys = new int[keys.length + 1];
+            int[][] newQuestIndices = new int[keys.length + 1][];
+            System.arraycopy(keys, 0, newKeys, 0, insertAt);
+            System.arraycopy(questIndices, 0, newQuestIndices, 0, insertAt);
+            newKeys[insertAt] = key;
+            newQuestIndices[insertAt] = new int[]{quest.getIndex()};
+            System.arraycopy(keys, insertAt, newKeys, insertAt + 1, keys.length - insertAt);
+            System.arraycopy(questIndices, insertAt, newQuestIndices, insertAt + 1, keys.length - insertAt);
+            return new ObjectiveIndex(newKeys, newQuestIndices);
+        }
+
+        public ObjectiveIndex without(Quest quest) {
+            if (quest.getTargetId() < 0) return this;
+            int i = Arrays.binarySearch(keys, key(quest.getType(), quest.getTargetId()));
+            if (i < 0) return this;
+            int[] ids = questIndices[i];
+            int position = -1;
+            for (int j = 0; j < ids.length; j++) {
+                if (ids[j] == quest.getIndex()) {
+                    position = j;
+                    break;
+                }
+            }
+            if (position < 0) return this;
+            if (ids.length > 1) {
+                int[] remaining = new int[ids.length - 1];
+                System.arraycopy(ids, 0, remaining, 0, position);
+                System.arraycopy(ids, position + 1, remaining, position, ids.length - position - 1);
+                int[][] newQuestIndices = questIndices.clone();
+                newQuestIndices[i] = remaining;
+                return new ObjectiveIndex(keys, newQuestIndices);
+            }
+            int[] newKeys = new int[keys.length - 1];
+            int[][] newQuestIndices = new int[keys.length - 1][];
+            System.arraycopy(keys, 0, newKeys, 0, i);
+            System.arraycopy(questIndices, 0, newQuestIndices, 0, i);
+            System.arraycopy(keys, i + 1, newKeys, i, keys.length - i - 1);
+            System.arraycopy(questIndices, i + 1, newQuestIndices, i, keys.length - i - 1);
+            return new ObjectiveIndex(newKeys, newQuestIndices);
+        }
+    }
+
+    public static final class LocationRegion {
+        private final int questIndex;
+        private final String world;
+        private final boolean wholeWorld;
+        private final int minX, minY, minZ, maxX, maxY, maxZ;
+        private final int centerX, centerY, centerZ;
+        private final long radiusSquared;
+
+        private LocationRegion(int questIndex, String world, boolean wholeWorld, int minX, int minY, int minZ, int maxX, int maxY, int maxZ,
+                               int centerX, int centerY, int centerZ, long radiusSquared) {
+            this.questIndex = questIndex;
+            this.world = world;
+            this.wholeWorld = wholeWorld;
+            this.minX = minX;
+            this.minY = minY;
+            this.minZ = minZ;
+            this.maxX = maxX;
+            this.maxY = maxY;
+            this.maxZ = maxZ;
+            this.centerX = centerX;
+            this.centerY = centerY;
+            this.centerZ = centerZ;
+            this.radiusSquared = radiusSquared;
+        }
+
+        public static LocationRegion parse(int questIndex, String target) {
+            if (target == null || target.isBlank()) return null;
+            String[] parts = target.trim().split(":");
+            try {
+                if (parts.length == 1) {
+                    return new LocationRegion(questIndex, parts[0], true, 0, 0, 0, 0, 0, 0, 0, 0, 0, -1L);
+                }
+                if (parts.length == 4 && parts[1].equalsIgnoreCase("box")) {
+                    int[] a = coordinates(parts[2]);
+                    int[] b = coordinates(parts[3]);
+                    return new LocationRegion(questIndex, parts[0], false,
+                            Math.min(a[0], b[0]), Math.min(a[1], b[1]), Math.min(a[2], b[2]),
+                            Math.max(a[0], b[0]), Math.max(a[1], b[1]), Math.max(a[2], b[2]),
+                            0, 0, 0, -1L);
+                }
+                if (parts.length == 4 && parts[1].equalsIgnoreCase("sphere")) {
+                    int[] c = coordinates(parts[2]);
+                    int radius = Integer.parseInt(parts[3].trim());
+                    if (radius < 0) return null;
+                    return new LocationRegion(questIndex, parts[0], false,
+                            c[0] - radius, c[1] - radius, c[2] - radius, c[0] + radius, c[1] + radius, c[2] + radius,
+                            c[0], c[1], c[2], (long) radius * radius);
+                }
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+            return null;
+        }
+
+        private static int[] coordinates(String value) {
+            String[] split = value.split(",");
+            if (split.length != 3) throw new IllegalArgumentException("Expected x,y,z but got " + value);
+            return new int[]{Integer.parseInt(split[0].trim()), Integer.parseInt(split[1].trim()), Integer.parseInt(split[2].trim())};
+        }
+
+        public int getQuestIndex() {
+            return questIndex;
+        }
+
+        public String getWorld() {
+            return world;
+        }
+
+        public boolean isWholeWorld() {
+            return wholeWorld;
+        }
+
+        public boolean contains(int x, int y, int z) {
+            if (wholeWorld) return true;
+            if (x < minX || x > maxX || y < minY || y > maxY || z < minZ || z > maxZ) return false;
+            if (radiusSquared < 0) return true;
+            long dx = x - centerX;
+            long dy = y - centerY;
+            long dz = z - centerZ;
+            return dx * dx + dy * dy + dz * dz <= radiusSquared;
+        }
+    }
+
+    public static final class SpatialIndex {
+        private static final LocationRegion[] NO_REGIONS = new LocationRegion[0];
+
+        private final Map<String, ChunkTable> chunks;
+        private final Map<String, LocationRegion[]> worlds;
+
+        private SpatialIndex(Map<String, ChunkTable> chunks, Map<String, LocationRegion[]> worlds) {
+            this.chunks = chunks;
+            this.worlds = worlds;
+        }
+
+        public static long chunkKey(int chunkX, int chunkZ) {
+            return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+        }
+
+        public static SpatialIndex of(Collection<Quest> quests) {
+            Map<String, Map<Long, List<LocationRegion>>> byChunk = new HashMap<>();
+            Map<String, List<LocationRegion>> byWorld = new HashMap<>();
+            for (Quest quest : quests) {
+                LocationRegion region = quest.getRegion();
+                if (region == null) continue;
+                if (region.isWholeWorld()) {
+                    byWorld.computeIfAbsent(region.getWorld(), w -> new ArrayList<>()).add(region);
+                    continue;
+                }
+                Map<Long, List<LocationRegion>> worldChunks = byChunk.computeIfAbsent(region.getWorld(), w -> new HashMap<>());
+                for (int cx = region.minX >> 4; cx <= region.maxX >> 4; cx++) {
+                    for (int cz = region.minZ >> 4; cz <= region.maxZ >> 4; cz++) {
+                        worldChunks.computeIfAbsent(chunkKey(cx, cz), k -> new ArrayList<>()).add(region);
+                    }
+                }
+            }
+
+            Map<String, ChunkTable> chunks = new HashMap<>();
+            byChunk.forEach((world, worldChunks) -> chunks.put(world, new ChunkTable(worldChunks)));
+            Map<String, LocationRegion[]> worlds = new HashMap<>();
+            byWorld.forEach((world, regions) -> worlds.put(world, regions.toArray(NO_REGIONS)));
+            return new SpatialIndex(Map.copyOf(chunks), Map.copyOf(worlds));
+        }
+
+        public boolean isEmpty() {
+            return chunks.isEmpty() && worlds.isEmpty();
+        }
+
+        public LocationRegion[] regionsAt(String world, int chunkX, int chunkZ) {
+            if (chunks.isEmpty()) return NO_REGIONS;
+            ChunkTable table = chunks.get(world);
+            return table == null ? NO_REGIONS : table.get(chunkKey(chunkX, chunkZ));
+        }
+
+        public LocationRegion[] worldRegions(String world) {
+            if (worlds.isEmpty()) return NO_REGIONS;
+            return worlds.getOrDefault(world, NO_REGIONS);
+        }
+
+        private static final class ChunkTable {
+            private final long[] keys;
+            private final LocationRegion[][] values;
+            private final int mask;
+
+            ChunkTable(Map<Long, List<LocationRegion>> entries) {
+                int capacity = Integer.highestOneBit(Math.max(entries.size(), 1) * 2 - 1) << 1;
+                this.keys = new long[capacity];
+                this.values = new LocationRegion[capacity][];
+                this.mask = capacity - 1;
+                entries.forEach((key, regions) -> {
+                    int slot = slot(key);
+                    while (values[slot] != null) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = key;
+                    values[slot] = regions.toArray(NO_REGIONS);
+                });
+            }
+
+            private int slot(long key) {
+                return (int) ((key * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+            }
+
+            LocationRegion[] get(long key) {
+                int slot = slot(key);
+                LocationRegion[] regions;
+                while ((regions = values[slot]) != null) {
+                    if (keys[slot] == key) return regions;
+                    slot = (slot + 1) & mask;
+                }
+                return NO_REGIONS;
+            }
+        }
     }
 
     public static class PlayerQuestData {
         private final UUID playerUUID;
         private final int questId;
-        private int progress;
-        private QuestStatus status;
+        private final int progress;
+        private final QuestStatus status;
+        private final int version;
+        private final int resetEpoch;
 
         public PlayerQuestData(UUID playerUUID, int questId, int progress, QuestStatus status) {
+            this(playerUUID, questId, progress, status, 0);
+        }
+
+        public PlayerQuestData(UUID playerUUID, int questId, int progress, QuestStatus status, int version) {
+            this(playerUUID, questId, progress, status, version, 0);
+        }
+
+        public PlayerQuestData(UUID playerUUID, int questId, int progress, QuestStatus status, int version, int resetEpoch) {
             this.playerUUID = playerUUID;
             this.questId = questId;
             this.progress = progress;
             this.status = status;
+            this.version = version & PlayerProgressStore.VERSION_MASK;
+            this.resetEpoch = resetEpoch;
+        }
+
+        public static PlayerQuestData of(UUID playerUUID, int questId, long entry, int resetEpoch) {
+            return new PlayerQuestData(playerUUID, questId, PlayerProgressStore.progress(entry),
+                    PlayerProgressStore.status(entry), PlayerProgressStore.version(entry), resetEpoch);
         }
 
         public UUID getPlayerUUID() {
@@ -565,23 +5430,24 @@ public final class QuestSystem extends JavaPlugin {
             return progress;
         }
 
-        public void setProgress(int progress) {
-            this.progress = progress;
-        }
-
         public QuestStatus getStatus() {
             return status;
         }
 
-        public void setStatus(QuestStatus status) {
-            this.status = status;
+        public int getVersion() {
+            return version;
+        }
+
+        public int getResetEpoch() {
+            return resetEpoch;
         }
     }
 
     public enum QuestStatus {
         AVAILABLE("§7Available"),
         IN_PROGRESS("§eIn Progress"),
-        COMPLETED("§aCompleted");
+        COMPLETED("§aCompleted"),
+        LOCKED("§8Locked");
         private final String displayName;
 
         QuestStatus(String displayName) {
@@ -593,6 +5459,84 @@ public final class QuestSystem extends JavaPlugin {
         }
     }
 
+    public enum ResetPeriod {
+        NONE,
+        DAILY,
+        WEEKLY;
+
+        public static ResetPeriod parse(String value) {
+            if (value == null || value.isBlank()) return NONE;
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                return NONE;
+            }
+        }
+    }
+
+    /**
+     * Public progress API for other plugins, available through Bukkit's {@code ServicesManager}.
+     * Amounts are deltas and may be negative; results are clamped to {@code [0, getRequiredAmount()]}.
+     * Only online players with loaded quest data are affected, and calls must be made on the server thread.
+     */
+    public interface QuestProgressService {
+        int addProgress(Player player, QuestType type, String target, int amount);
+
+        int submit(ProgressBatch batch);
+    }
+
+    public static final class ProgressBatch {
+        private final Map<UUID, PlayerDeltas> players = new LinkedHashMap<>();
+
+        public ProgressBatch add(Player player, QuestType type, String target, int amount) {
+            int targetId = ObjectiveIndex.targetId(type, target);
+            if (targetId < 0) {
+                throw new IllegalArgumentException("'" + target + "' is not a countable " + type + " target");
+            }
+            if (amount != 0) {
+                players.computeIfAbsent(player.getUniqueId(), uuid -> new PlayerDeltas(player, new LinkedHashMap<>()))
+                        .amounts().merge(new Objective(type, targetId), amount, Integer::sum);
+            }
+            return this;
+        }
+
+        public boolean isEmpty() {
+            return players.isEmpty();
+        }
+
+        Collection<PlayerDeltas> getPlayers() {
+            return players.values();
+        }
+
+        record Objective(QuestType type, int targetId) {
+        }
+
+        record PlayerDeltas(Player player, Map<Objective, Integer> amounts) {
+        }
+    }
+
+    public static class ProgressService implements QuestProgressService {
+        private final QuestSystem plugin;
+
+        public ProgressService(QuestSystem plugin) {
+            this.plugin = plugin;
+        }
+
+        @Override
+        public int addProgress(Player player, QuestType type, String target, int amount) {
+            return submit(new ProgressBatch().add(player, type, target, amount));
+        }
+
+        @Override
+        public int submit(ProgressBatch batch) {
+            if (!Bukkit.isPrimaryThread()) {
+                throw new IllegalStateException("Quest progress must be submitted from the server thread.");
+            }
+            if (batch.isEmpty()) return 0;
+            return plugin.getQuestManager().applyProgress(batch);
+        }
+    }
+
     public enum QuestType {
         KILL_MOBS,
         GATHER_ITEMS,
@@ -0,0 +1,83 @@
+package me.pvpclub.questSystem;
+
+import me.pvpclub.questSystem.QuestSystem.CompletionBitmap;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompletionBitmapTest {
+    private static final byte RAW = 1;
+    private static final byte DEFLATED = 2;
+
+    @Test
+    void emptyInputDecodesToNoCompletions() {
+        assertTrue(CompletionBitmap.decode(null).isEmpty());
+        assertTrue(CompletionBitmap.decode(new byte[0]).isEmpty());
+        assertEquals(new BitSet(), CompletionBitmap.decode(CompletionBitmap.encode(new BitSet())));
+    }
+
+    @Test
+    void smallBitmapsStayRaw() {
+        BitSet completed = bits(1, 2, 3, 40, 255);
+
+        byte[] encoded = CompletionBitmap.encode(completed);
+
+        assertEquals(RAW, encoded[0]);
+        assertEquals(completed, CompletionBitmap.decode(encoded));
+    }
+
+    @Test
+    void sparseLargeBitmapsAreDeflated() {
+        BitSet completed = bits(1, 500, 4_000, 20_000);
+
+        byte[] encoded = CompletionBitmap.encode(completed);
+
+        assertEquals(DEFLATED, encoded[0]);
+        assertTrue(encoded.length < completed.toByteArray().length / 10);
+        assertEquals(completed, CompletionBitmap.decode(encoded));
+    }
+
+    @Test
+    void incompressibleBitmapsFallBackToRaw() {
+        Random random = new Random(42);
+        BitSet completed = new BitSet();
+        for (int i = 0; i < 8_192; i++) {
+            if (random.nextBoolean()) completed.set(i);
+        }
+
+        byte[] encoded = CompletionBitmap.encode(completed);
+
+        assertEquals(RAW, encoded[0]);
+        assertEquals(completed, CompletionBitmap.decode(encoded));
+    }
+
+    @Test
+    void unknownFormatIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> CompletionBitmap.decode(new byte[]{9, 1, 2}));
+        assertThrows(IllegalArgumentException.class, () -> CompletionBitmap.decode(new byte[]{DEFLATED, 0, 0}));
+    }
+
+    @Test
+    void corruptOrTruncatedDeflatedBitmapsAreRejected() {
+        byte[] encoded = CompletionBitmap.encode(bits(1, 500, 4_000, 20_000));
+        byte[] corrupt = encoded.clone();
+        Arrays.fill(corrupt, 5, corrupt.length, (byte) 0xFF);
+
+        assertThrows(IllegalArgumentException.class, () -> CompletionBitmap.decode(corrupt));
+        assertThrows(IllegalArgumentException.class, () -> CompletionBitmap.decode(Arrays.copyOf(encoded, encoded.length - 4)));
+    }
+
+    private static BitSet bits(int... indexes) {
+        BitSet bits = new BitSet();
+        for (int index : indexes) {
+            bits.set(index);
+        }
+        return bits;
+    }
+}
@@ -0,0 +1,141 @@
+package me.pvpclub.questSystem;
+
+import me.pvpclub.questSystem.QuestSystem.PlayerProgressStore;
+import me.pvpclub.questSystem.QuestSystem.QuestStatus;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static me.pvpclub.questSystem.QuestSystem.PlayerProgressStore.VERSION_MASK;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PlayerProgressStoreTest {
+
+    @Test
+    void packsProgressStatusAndVersionIntoOneEntry() {
+        PlayerProgressStore store = new PlayerProgressStore(4);
+        for (QuestStatus status : QuestStatus.values()) {
+            for (int progress : new int[]{0, 1, 12345, Integer.MAX_VALUE, -1}) {
+                for (int version : new int[]{0, 1, VERSION_MASK >> 1, VERSION_MASK}) {
+                    store.load(2, progress, status, version, 0);
+                    long entry = store.get(2);
+                    assertEquals(progress, PlayerProgressStore.progress(entry));
+                    assertEquals(status, PlayerProgressStore.status(entry));
+                    assertEquals(version, PlayerProgressStore.version(entry));
+                }
+            }
+        }
+    }
+
+    @Test
+    void everyWriteBumpsTheVersion() {
+        PlayerProgressStore store = new PlayerProgressStore(1);
+        long first = store.set(0, 1, QuestStatus.IN_PROGRESS);
+        long second = store.set(0, 2, QuestStatus.IN_PROGRESS);
+
+        assertEquals(1, PlayerProgressStore.version(first));
+        assertEquals(2, PlayerProgressStore.version(second));
+        assertTrue(PlayerProgressStore.isNewer(PlayerProgressStore.version(second), PlayerProgressStore.version(first)));
+    }
+
+    @Test
+    void versionWrapsAfterTwentyNineBits() {
+        PlayerProgressStore store = new PlayerProgressStore(1);
+        store.load(0, 7, QuestStatus.IN_PROGRESS, VERSION_MASK, 0);
+
+        long wrapped = store.set(0, 8, QuestStatus.IN_PROGRESS);
+
+        assertEquals(0, PlayerProgressStore.version(wrapped));
+        assertEquals(8, PlayerProgressStore.progress(wrapped));
+        assertEquals(QuestStatus.IN_PROGRESS, PlayerProgressStore.status(wrapped));
+        assertTrue(PlayerProgressStore.isNewer(0, VERSION_MASK));
+        assertFalse(PlayerProgressStore.isNewer(VERSION_MASK, 0));
+    }
+
+    @Test
+    void isNewerComparesWithinHalfTheVersionSpace() {
+        int half = VERSION_MASK >> 1;
+
+        assertFalse(PlayerProgressStore.isNewer(5, 5));
+        assertTrue(PlayerProgressStore.isNewer(6, 5));
+        assertFalse(PlayerProgressStore.isNewer(5, 6));
+        assertTrue(PlayerProgressStore.isNewer(half, 0));
+        assertFalse(PlayerProgressStore.isNewer(half + 1, 0));
+        assertTrue(PlayerProgressStore.isNewer(3, VERSION_MASK - 3));
+    }
+
+    @Test
+    void staleCompareAndSetIsRejected() {
+        PlayerProgressStore store = new PlayerProgressStore(1);
+        long seen = store.get(0);
+        store.set(0, 1, QuestStatus.IN_PROGRESS);
+
+        assertEquals(PlayerProgressStore.CONFLICT, store.compareAndSet(0, seen, 5, QuestStatus.COMPLETED));
+        assertEquals(1, store.getProgress(0));
+    }
+
+    @Test
+    void growKeepsEntriesAndEpochs() {
+        PlayerProgressStore store = new PlayerProgressStore(2);
+        store.load(1, 4, QuestStatus.COMPLETED, 9, 3);
+
+        store.set(40, 1, QuestStatus.IN_PROGRESS);
+        store.setEpoch(90, 6);
+
+        assertTrue(store.capacity() > 90);
+        assertEquals(4, store.getProgress(1));
+        assertEquals(QuestStatus.COMPLETED, store.getStatus(1));
+        assertEquals(9, PlayerProgressStore.version(store.get(1)));
+        assertEquals(3, store.getEpoch(1));
+        assertEquals(1, store.getProgress(40));
+        assertEquals(6, store.getEpoch(90));
+        assertEquals(0L, store.get(-1));
+        assertEquals(0L, store.get(10_000));
+    }
+
+    @Test
+    void concurrentIncrementsAreNotLost() throws InterruptedException {
+        PlayerProgressStore store = new PlayerProgressStore(1);
+        int threads = 8;
+        int increments = 10_000;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            // Writers past the end force grow() while others are mid-CAS.
+            int index = t % 2 == 0 ? 0 : 64 * (t + 1);
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < increments; i++) {
+                    while (true) {
+                        long seen = store.get(index);
+                        if (store.compareAndSet(index, seen, PlayerProgressStore.progress(seen) + 1, QuestStatus.IN_PROGRESS) != PlayerProgressStore.CONFLICT) {
+                            break;
+                        }
+                    }
+                    store.setEpoch(index, i);
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        assertEquals(threads / 2 * increments, store.getProgress(0));
+        assertEquals(threads / 2 * increments, PlayerProgressStore.version(store.get(0)));
+        for (int t = 1; t < threads; t += 2) {
+            assertEquals(increments, store.getProgress(64 * (t + 1)));
+            assertEquals(increments - 1, store.getEpoch(64 * (t + 1)));
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package me.pvpclub.questSystem;
+
+import me.pvpclub.questSystem.QuestSystem.PlayerQuestData;
+import me.pvpclub.questSystem.QuestSystem.ProgressJournal;
+import me.pvpclub.questSystem.QuestSystem.QuestStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProgressJournalTest {
+    private static final int HEADER_SIZE = 8;
+    private static final int RECORD_SIZE = 36;
+    private static final int SEGMENT_SIZE = 4096;
+
+    private static final UUID PLAYER = UUID.fromString("8667ba71-b85a-4004-af54-457a9734eed7");
+
+    @TempDir
+    File directory;
+
+    @Test
+    void replaysEveryRecordAfterAnUncleanStop() throws IOException {
+        ProgressJournal journal = open();
+        journal.append(new PlayerQuestData(PLAYER, 1, 3, QuestStatus.IN_PROGRESS, 1, 7));
+        journal.append(new PlayerQuestData(PLAYER, 2, 10, QuestStatus.COMPLETED, 4, 0));
+        journal.close(false);
+
+        List<PlayerQuestData> entries = replay().entries();
+
+        assertEquals(2, entries.size());
+        PlayerQuestData first = entries.get(0);
+        assertEquals(PLAYER, first.getPlayerUUID());
+        assertEquals(1, first.getQuestId());
+        assertEquals(3, first.getProgress());
+        assertEquals(QuestStatus.IN_PROGRESS, first.getStatus());
+        assertEquals(1, first.getVersion());
+        assertEquals(7, first.getResetEpoch());
+        assertEquals(QuestStatus.COMPLETED, entries.get(1).getStatus());
+    }
+
+    @Test
+    void keepsTheNewestVersionOfEachQuest() throws IOException {
+        ProgressJournal journal = open();
+        journal.append(new PlayerQuestData(PLAYER, 1, 5, QuestStatus.IN_PROGRESS, 5));
+        journal.append(new PlayerQuestData(PLAYER, 1, 4, QuestStatus.IN_PROGRESS, 4));
+        journal.append(new PlayerQuestData(PLAYER, 1, 6, QuestStatus.IN_PROGRESS, 6));
+        journal.close(false);
+
+        List<PlayerQuestData> entries = replay().entries();
+
+        assertEquals(1, entries.size());
+        assertEquals(6, entries.get(0).getProgress());
+    }
+
+    @Test
+    void stopsAtATornTail() throws IOException {
+        ProgressJournal journal = open();
+        for (int progress = 1; progress <= 3; progress++) {
+            journal.append(new PlayerQuestData(PLAYER, progress, progress, QuestStatus.IN_PROGRESS, 1));
+        }
+        journal.close(false);
+        try (RandomAccessFile segment = new RandomAccessFile(segment(1), "rw")) {
+            segment.setLength(HEADER_SIZE + 2L * RECORD_SIZE + RECORD_SIZE / 2);
+        }
+
+        List<PlayerQuestData> entries = replay().entries();
+
+        assertEquals(List.of(1, 2), questIds(entries));
+    }
+
+    @Test
+    void stopsAtACorruptRecordButReadsLaterSegments() throws IOException {
+        ProgressJournal journal = open();
+        journal.append(new PlayerQuestData(PLAYER, 1, 1, QuestStatus.IN_PROGRESS, 1));
+        journal.append(new PlayerQuestData(PLAYER, 2, 1, QuestStatus.IN_PROGRESS, 1));
+        journal.append(new PlayerQuestData(PLAYER, 3, 1, QuestStatus.IN_PROGRESS, 1));
+        assertEquals(1, journal.seal());
+        journal.append(new PlayerQuestData(PLAYER, 4, 1, QuestStatus.IN_PROGRESS, 1));
+        journal.close(false);
+        try (RandomAccessFile segment = new RandomAccessFile(segment(1), "rw")) {
+            long progressOfSecond = HEADER_SIZE + RECORD_SIZE + 20;
+            segment.seek(progressOfSecond);
+            segment.writeInt(99);
+        }
+
+        ProgressJournal.Recovery recovery = replay();
+
+        assertEquals(List.of(1, 4), questIds(recovery.entries()));
+        assertEquals(2, recovery.lastSegmentId());
+    }
+
+    @Test
+    void ignoresSegmentsWithoutAJournalHeader() throws IOException {
+        ProgressJournal journal = open();
+        journal.append(new PlayerQuestData(PLAYER, 1, 1, QuestStatus.IN_PROGRESS, 1));
+        journal.close(false);
+        try (RandomAccessFile segment = new RandomAccessFile(segment(1), "rw")) {
+            segment.writeInt(0);
+        }
+
+        assertTrue(replay().entries().isEmpty());
+    }
+
+    @Test
+    void releasedSegmentsAreNotReplayed() throws IOException {
+        ProgressJournal journal = open();
+        journal.append(new PlayerQuestData(PLAYER, 1, 1, QuestStatus.IN_PROGRESS, 1));
+        long sealed = journal.seal();
+        journal.append(new PlayerQuestData(PLAYER, 2, 1, QuestStatus.IN_PROGRESS, 1));
+        journal.release(sealed);
+        journal.close(false);
+
+        ProgressJournal.Recovery recovery = replay();
+
+        assertFalse(segment(sealed).exists());
+        assertEquals(List.of(2), questIds(recovery.entries()));
+    }
+
+    @Test
+    void cleanCloseLeavesNothingToReplay() throws IOException {
+        ProgressJournal journal = open();
+        journal.append(new PlayerQuestData(PLAYER, 1, 1, QuestStatus.IN_PROGRESS, 1));
+        journal.close(true);
+
+        ProgressJournal.Recovery recovery = replay();
+
+        assertTrue(recovery.entries().isEmpty());
+        assertEquals(1, recovery.lastSegmentId());
+    }
+
+    private ProgressJournal open() throws IOException {
+        ProgressJournal journal = new ProgressJournal(null, directory, SEGMENT_SIZE);
+        journal.open(journal.replay().lastSegmentId() + 1);
+        return journal;
+    }
+
+    private ProgressJournal.Recovery replay() throws IOException {
+        return new ProgressJournal(null, directory, SEGMENT_SIZE).replay();
+    }
+
+    private File segment(long id) {
+        return new File(directory, "segment-" + id + ".journal");
+    }
+
+    private static List<Integer> questIds(List<PlayerQuestData> entries) {
+        return entries.stream().sorted(Comparator.comparingInt(PlayerQuestData::getQuestId)).map(PlayerQuestData::getQuestId).toList();
+    }
+}
@@ -0,0 +1,139 @@
+package me.pvpclub.questSystem;
+
+import me.pvpclub.questSystem.QuestSystem.H2Dialect;
+import me.pvpclub.questSystem.QuestSystem.MySqlDialect;
+import me.pvpclub.questSystem.QuestSystem.PlayerQuestData;
+import me.pvpclub.questSystem.QuestSystem.ProgressWriteBehind;
+import me.pvpclub.questSystem.QuestSystem.QuestStatus;
+import me.pvpclub.questSystem.QuestSystem.SqlDialect;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+
+import static me.pvpclub.questSystem.QuestSystem.PlayerProgressStore.VERSION_MASK;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class ProgressWriteBehindTest {
+    // Points at a scratch MySQL database, e.g. jdbc:mysql://localhost/quests_test?user=root; its quest tables are dropped.
+    private static final String MYSQL_URL = System.getProperty("quests.test.mysql-url");
+
+    private static final UUID PLAYER = UUID.fromString("8667ba71-b85a-4004-af54-457a9734eed7");
+
+    @Test
+    void coalescingKeepsTheNewerVersion() {
+        PlayerQuestData older = new PlayerQuestData(PLAYER, 1, 3, QuestStatus.IN_PROGRESS, 3);
+        PlayerQuestData newer = new PlayerQuestData(PLAYER, 1, 4, QuestStatus.IN_PROGRESS, 4);
+
+        assertSame(newer, ProgressWriteBehind.latest(older, newer));
+        assertSame(newer, ProgressWriteBehind.latest(newer, older));
+    }
+
+    @Test
+    void coalescingFollowsTheVersionAcrossTheWrap() {
+        PlayerQuestData beforeWrap = new PlayerQuestData(PLAYER, 1, 3, QuestStatus.IN_PROGRESS, VERSION_MASK);
+        PlayerQuestData afterWrap = new PlayerQuestData(PLAYER, 1, 4, QuestStatus.IN_PROGRESS, VERSION_MASK + 1);
+
+        assertEquals(0, afterWrap.getVersion());
+        assertSame(afterWrap, ProgressWriteBehind.latest(beforeWrap, afterWrap));
+        assertSame(afterWrap, ProgressWriteBehind.latest(afterWrap, beforeWrap));
+    }
+
+    @Test
+    void h2UpsertRejectsStaleWrites() throws SQLException {
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:write-behind-" + UUID.randomUUID())) {
+            assertRejectsStaleWrites(connection, new H2Dialect());
+        }
+    }
+
+    @Test
+    void mySqlUpsertRejectsStaleWrites() throws SQLException {
+        assumeTrue(MYSQL_URL != null, "set -Dquests.test.mysql-url to run against MySQL");
+        try (Connection connection = DriverManager.getConnection(MYSQL_URL)) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("DROP TABLE IF EXISTS player_quest_progress");
+                statement.execute("DROP TABLE IF EXISTS quest_reward_claims");
+                statement.execute("DROP TABLE IF EXISTS quest_prerequisites");
+                statement.execute("DROP TABLE IF EXISTS quests");
+            }
+            assertRejectsStaleWrites(connection, new MySqlDialect());
+        }
+    }
+
+    private static void assertRejectsStaleWrites(Connection connection, SqlDialect dialect) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(dialect.createTableSql("quests"));
+            statement.execute(dialect.createTableSql("player_quest_progress"));
+            for (String column : new String[]{"version", "reset_epoch"}) {
+                statement.execute("ALTER TABLE player_quest_progress ADD COLUMN " + column + " " + dialect.columnDefinition("player_quest_progress", column));
+            }
+            statement.execute(dialect.insertExampleQuestSql());
+        }
+        int questId;
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT id FROM quests")) {
+            rs.next();
+            questId = rs.getInt(1);
+        }
+
+        upsert(connection, dialect, questId, 1, QuestStatus.IN_PROGRESS, 1);
+        assertRow(connection, questId, 1, QuestStatus.IN_PROGRESS, 1);
+
+        upsert(connection, dialect, questId, 3, QuestStatus.IN_PROGRESS, 3);
+        assertRow(connection, questId, 3, QuestStatus.IN_PROGRESS, 3);
+
+        upsert(connection, dialect, questId, 2, QuestStatus.AVAILABLE, 2);
+        assertRow(connection, questId, 3, QuestStatus.IN_PROGRESS, 3);
+
+        upsert(connection, dialect, questId, 9, QuestStatus.COMPLETED, 3);
+        assertRow(connection, questId, 3, QuestStatus.IN_PROGRESS, 3);
+
+        upsert(connection, dialect, questId, 4, QuestStatus.IN_PROGRESS, VERSION_MASK >> 1);
+        assertRow(connection, questId, 4, QuestStatus.IN_PROGRESS, VERSION_MASK >> 1);
+
+        upsert(connection, dialect, questId, 5, QuestStatus.IN_PROGRESS, VERSION_MASK);
+        assertRow(connection, questId, 4, QuestStatus.IN_PROGRESS, VERSION_MASK >> 1);
+
+        upsert(connection, dialect, questId, 5, QuestStatus.IN_PROGRESS, VERSION_MASK - 1);
+        assertRow(connection, questId, 5, QuestStatus.IN_PROGRESS, VERSION_MASK - 1);
+
+        upsert(connection, dialect, questId, 6, QuestStatus.COMPLETED, 0);
+        assertRow(connection, questId, 6, QuestStatus.COMPLETED, 0);
+
+        upsert(connection, dialect, questId, 4, QuestStatus.IN_PROGRESS, VERSION_MASK);
+        assertRow(connection, questId, 6, QuestStatus.COMPLETED, 0);
+    }
+
+    private static void upsert(Connection connection, SqlDialect dialect, int questId, int progress, QuestStatus status, int version) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(dialect.upsertProgressSql())) {
+            ps.setString(1, PLAYER.toString());
+            ps.setInt(2, questId);
+            ps.setInt(3, progress);
+            ps.setString(4, status.name());
+            ps.setInt(5, version);
+            ps.setInt(6, 0);
+            ps.executeUpdate();
+        }
+    }
+
+    private static void assertRow(Connection connection, int questId, int progress, QuestStatus status, int version) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+                "SELECT progress, status, version FROM player_quest_progress WHERE player_uuid = ? AND quest_id = ?")) {
+            ps.setString(1, PLAYER.toString());
+            ps.setInt(2, questId);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                assertEquals(progress, rs.getInt(1));
+                assertEquals(status.name(), rs.getString(2));
+                assertEquals(version, rs.getInt(3));
+            }
+        }
+    }
+}